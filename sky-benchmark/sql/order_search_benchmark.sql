@@ -0,0 +1,42 @@
+-- 订单检索基准测试：在测试库中生成100万条订单，对比全模糊查询和前缀/尾号查询
+-- 需要先执行 sky-server/src/main/resources/db/migration 下的迁移脚本；不要在生产库执行
+-- 用法：mysql -u root -p sky_take_out_bench < order_search_benchmark.sql
+
+set session cte_max_recursion_depth = 1000000;
+
+-- 生成100万条订单，订单号为19位数字，手机号为138开头的11位数字
+insert into orders (number, status, user_id, address_book_id, order_time, pay_method, pay_status, amount, phone, address, consignee)
+with recursive seq (n) as (select 1 union all select n + 1 from seq where n < 1000000)
+select concat('7', lpad(n * 7919 % 1000000000000000000, 18, '0')),
+       n % 6 + 1,
+       n % 50000 + 1,
+       1,
+       now() - interval (n % 525600) minute,
+       1,
+       1,
+       round(10 + n % 200, 2),
+       concat('138', lpad(n * 104729 % 100000000, 8, '0')),
+       '测试地址',
+       '测试用户'
+from seq;
+
+analyze table orders;
+
+-- 修改前：全模糊查询，type = ALL，扫描全表
+explain select * from orders where phone like concat('%', '5678', '%') order by order_time desc limit 10;
+select sql_no_cache count(*) from orders where phone like concat('%', '5678', '%');
+
+-- 修改后：按手机尾号检索，走idx_orders_phone_reversed的range扫描
+explain select * from orders where (phone like concat('5678', '%') or phone_reversed like concat(reverse('5678'), '%')) order by order_time desc limit 10;
+select sql_no_cache count(*) from orders where (phone like concat('5678', '%') or phone_reversed like concat(reverse('5678'), '%'));
+
+-- 修改前：订单号全模糊查询
+explain select * from orders where number like concat('%', '123456', '%') order by order_time desc limit 10;
+select sql_no_cache count(*) from orders where number like concat('%', '123456', '%');
+
+-- 修改后：按订单号前缀或尾号检索
+explain select * from orders where (number like concat('123456', '%') or number_reversed like concat(reverse('123456'), '%')) order by order_time desc limit 10;
+select sql_no_cache count(*) from orders where (number like concat('123456', '%') or number_reversed like concat(reverse('123456'), '%'));
+
+-- 清理测试数据
+-- delete from orders where address = '测试地址';
@@ -0,0 +1,48 @@
+package com.sky.benchmark;
+
+import com.sky.utils.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花算法id生成器的吞吐量
+ * 单个节点每毫秒最多生成4096个id，超过后等待下一毫秒，多线程的结果应接近该上限
+ * 运行：mvn -pl sky-benchmark -am package -DskipTests && java -jar sky-benchmark/target/benchmarks.jar SnowflakeIdGenerator
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnowflakeIdGeneratorBenchmark {
+
+    //与application.yml中的默认配置一致
+    private final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, 1704067200000L, 5000);
+
+    @Benchmark
+    public long nextId() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long nextIdContended() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String nextIdStr() {
+        return generator.nextIdStr();
+    }
+}
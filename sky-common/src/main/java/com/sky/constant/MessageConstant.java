@@ -24,5 +24,10 @@ public class MessageConstant {
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
+    public static final String SHOP_CLOSED = "店铺已打烊，暂不接单";
+    public static final String REQUEST_IN_PROGRESS = "请求正在处理中，请稍后重试";
+    public static final String INVALID_CURSOR = "分页游标无效";
+    public static final String REPORT_DATE_RANGE_INVALID = "开始日期不能晚于结束日期";
+    public static final String REPORT_DATE_RANGE_TOO_LONG = "导出的日期范围不能超过366天";
 
 }
@@ -0,0 +1,12 @@
+package com.sky.exception;
+
+/**
+ * 相同幂等键的请求正在处理中
+ */
+public class RequestInProgressException extends BaseException {
+
+    public RequestInProgressException(String msg) {
+        super(msg);
+    }
+
+}
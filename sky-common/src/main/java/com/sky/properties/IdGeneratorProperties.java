@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.id-generator")
+@Data
+public class IdGeneratorProperties {
+
+    /**
+     * 节点id，取值0~1023，每个应用节点必须不同
+     */
+    private long workerId = 0;
+
+    /**
+     * 起始时间戳，单位毫秒，上线后不能修改
+     */
+    private long epoch = 1704067200000L;
+
+    /**
+     * 允许的最大时钟回拨时间，单位毫秒，回拨不超过该时间时继续使用上一次的时间戳生成
+     */
+    private long maxBackwardMillis = 5000;
+
+}
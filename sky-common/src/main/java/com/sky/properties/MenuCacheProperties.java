@@ -0,0 +1,32 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.menu-cache")
+@Data
+public class MenuCacheProperties {
+
+    /**
+     * redis中菜单缓存的过期时间，单位秒
+     */
+    private long ttl = 3600;
+
+    /**
+     * 每个应用节点本地缓存的最大条目数
+     */
+    private long localMaximumSize = 1000;
+
+    /**
+     * 本地缓存的过期时间，单位秒，兜底pub/sub消息丢失的情况
+     */
+    private long localTtl = 300;
+
+    /**
+     * 提前刷新系数，越大越早刷新，0表示不提前刷新
+     */
+    private double earlyRefreshBeta = 1.0;
+
+}
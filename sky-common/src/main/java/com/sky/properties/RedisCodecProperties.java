@@ -0,0 +1,18 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.redis")
+@Data
+public class RedisCodecProperties {
+
+    /**
+     * 写入redis时value使用的编码格式：smile(紧凑的二进制json) 或 jdk(jdk序列化)
+     * 读取时两种格式都支持，切换编码格式不影响已有数据
+     */
+    private String codec = "smile";
+
+}
@@ -0,0 +1,32 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.websocket")
+@Data
+public class WebSocketProperties {
+
+    /**
+     * 每个客户端待发送消息队列的最大长度
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * 队列满时的处理方式：drop-oldest(丢弃最早的消息) 或 close(关闭连接)
+     */
+    private String overflowPolicy = "drop-oldest";
+
+    /**
+     * 单条消息的发送超时时间，单位毫秒，超时后关闭连接
+     */
+    private long sendTimeout = 5000;
+
+    /**
+     * 发起异步发送的线程数，发送线程不等待客户端接收
+     */
+    private int sendThreads = 2;
+
+}
@@ -0,0 +1,85 @@
+package com.sky.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花算法id生成器：41位时间戳 + 10位节点id + 12位序列号
+ * 无锁实现，同一个节点生成的id严格递增
+ * 同一毫秒内序列号用完时等待下一毫秒；时钟回拨时继续使用上一次的时间戳递增，回拨太多时抛出异常
+ */
+@Slf4j
+public class SnowflakeIdGenerator {
+
+    private static final int WORKER_ID_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+
+    private final long workerId;
+    private final long epoch;
+    private final long maxBackwardMillis;
+    //当前时间(毫秒)
+    private final LongSupplier clock;
+
+    //上一次生成的 时间戳 << SEQUENCE_BITS | 序列号
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(long workerId, long epoch, long maxBackwardMillis) {
+        this(workerId, epoch, maxBackwardMillis, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long workerId, long epoch, long maxBackwardMillis, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("节点id必须在0~" + MAX_WORKER_ID + "之间:" + workerId);
+        }
+        this.workerId = workerId;
+        this.epoch = epoch;
+        this.maxBackwardMillis = maxBackwardMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 生成下一个id
+     *
+     * @return
+     */
+    public long nextId() {
+        while (true) {
+            long now = clock.getAsLong() - epoch;
+            long prev = last.get();
+            long prevTimestamp = prev >>> SEQUENCE_BITS;
+            long next;
+            if (now > prevTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                //同一毫秒或时钟回拨，序列号加1，时钟回拨期间用完时进位到下一毫秒
+                next = prev + 1;
+                if (now == prevTimestamp && (next >>> SEQUENCE_BITS) > now) {
+                    //当前毫秒的序列号已用完，等待时钟进入下一毫秒，不提前占用未来的时间戳
+                    Thread.onSpinWait();
+                    continue;
+                }
+                if ((next >>> SEQUENCE_BITS) - now > maxBackwardMillis) {
+                    throw new IllegalStateException("时钟回拨超过" + maxBackwardMillis + "毫秒，拒绝生成id");
+                }
+            }
+            if (last.compareAndSet(prev, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (WORKER_ID_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * 生成下一个id的字符串形式
+     *
+     * @return
+     */
+    public String nextIdStr() {
+        return String.valueOf(nextId());
+    }
+}
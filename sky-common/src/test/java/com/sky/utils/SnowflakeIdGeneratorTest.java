@@ -0,0 +1,131 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long EPOCH = 1704067200000L;
+    private static final long START = EPOCH + 1000;
+    private static final long WORKER_ID = 3;
+    private static final int SEQUENCES_PER_MILLI = 4096;
+
+    @Test
+    void sameMillisecondIdsIncreaseBySequence() {
+        AtomicLong time = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID, EPOCH, 10, time::get);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        assertEquals(START - EPOCH, timestamp(first));
+        assertEquals(WORKER_ID, workerId(first));
+        assertEquals(0, sequence(first));
+        assertEquals(1, sequence(second));
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    void sequenceExhaustedWaitsForNextMillisecond() {
+        //前4097次读取时钟都在同一毫秒：4096个id用完序列号，第4097个id等待时钟进入下一毫秒
+        AtomicLong calls = new AtomicLong();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID, EPOCH, 10,
+                () -> calls.incrementAndGet() <= SEQUENCES_PER_MILLI + 1 ? START : START + 1);
+
+        long prev = -1;
+        for (int i = 0; i < SEQUENCES_PER_MILLI; i++) {
+            long id = generator.nextId();
+            assertEquals(START - EPOCH, timestamp(id));
+            assertTrue(id > prev);
+            prev = id;
+        }
+
+        long id = generator.nextId();
+        assertEquals(START + 1 - EPOCH, timestamp(id));
+        assertEquals(0, sequence(id));
+        assertTrue(id > prev);
+        //序列号用完后重新读取了时钟，而不是直接占用下一毫秒
+        assertEquals(SEQUENCES_PER_MILLI + 2, calls.get());
+    }
+
+    @Test
+    void sustainedLoadNeverRunsAheadOfClock() {
+        //时钟每生成10000个id才前进1毫秒，远低于生成速度
+        AtomicLong calls = new AtomicLong();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID, EPOCH, 5,
+                () -> START + calls.incrementAndGet() / 10000);
+
+        long prev = -1;
+        for (int i = 0; i < 100000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > prev);
+            assertTrue(timestamp(id) <= START + calls.get() / 10000 - EPOCH);
+            prev = id;
+        }
+    }
+
+    @Test
+    void clockMovedBackwardsWithinLimitKeepsIncreasing() {
+        AtomicLong time = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID, EPOCH, 10, time::get);
+
+        long before = generator.nextId();
+        time.addAndGet(-5);
+        long after = generator.nextId();
+
+        assertEquals(START - EPOCH, timestamp(after));
+        assertEquals(before + 1, after);
+    }
+
+    @Test
+    void sequenceExhaustedWhileClockIsBehindCarriesToNextMillisecond() {
+        AtomicLong time = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID, EPOCH, 10, time::get);
+
+        generator.nextId();
+        time.addAndGet(-5);
+        long prev = -1;
+        for (int i = 1; i < SEQUENCES_PER_MILLI; i++) {
+            prev = generator.nextId();
+        }
+        long id = generator.nextId();
+
+        assertEquals(START + 1 - EPOCH, timestamp(id));
+        assertEquals(0, sequence(id));
+        assertTrue(id > prev);
+    }
+
+    @Test
+    void clockMovedBackwardsBeyondLimitThrows() {
+        AtomicLong time = new AtomicLong(START);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(WORKER_ID, EPOCH, 10, time::get);
+
+        generator.nextId();
+        time.addAndGet(-100);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void invalidWorkerIdRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1, EPOCH, 10));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1, EPOCH, 10));
+    }
+
+    private long timestamp(long id) {
+        return id >>> 22;
+    }
+
+    private long workerId(long id) {
+        return (id >>> 12) & SnowflakeIdGenerator.MAX_WORKER_ID;
+    }
+
+    private long sequence(long id) {
+        return id & (SEQUENCES_PER_MILLI - 1);
+    }
+}
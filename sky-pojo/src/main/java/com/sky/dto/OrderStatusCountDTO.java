@@ -0,0 +1,39 @@
+package com.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 各个状态的订单数量
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusCountDTO implements Serializable {
+
+    //待付款
+    private Integer pendingPayment;
+
+    //待接单
+    private Integer toBeConfirmed;
+
+    //已接单
+    private Integer confirmed;
+
+    //派送中
+    private Integer deliveryInProgress;
+
+    //已完成
+    private Integer completed;
+
+    //已取消
+    private Integer cancelled;
+
+    //全部订单
+    private Integer total;
+}
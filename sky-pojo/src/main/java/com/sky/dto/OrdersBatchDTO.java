@@ -0,0 +1,17 @@
+package com.sky.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+public class OrdersBatchDTO implements Serializable {
+
+    //订单id
+    private List<Long> ids;
+
+    //订单拒绝原因，批量拒单时使用
+    private String rejectionReason;
+
+}
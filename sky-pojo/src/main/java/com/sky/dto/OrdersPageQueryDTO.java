@@ -27,4 +27,12 @@ public class OrdersPageQueryDTO implements Serializable {
 
     private Long userId;
 
+    //游标分页：上一页最后一条订单的游标，查询第一页时为空
+    private String cursor;
+
+    //游标解析出的下单时间和订单id，按(下单时间, id)倒序查询其之后的订单
+    private LocalDateTime cursorOrderTime;
+
+    private Long cursorId;
+
 }
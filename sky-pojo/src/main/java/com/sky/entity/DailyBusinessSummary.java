@@ -0,0 +1,44 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日营业数据汇总
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyBusinessSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    //营业日期
+    private LocalDate date;
+
+    //营业额
+    private BigDecimal turnover;
+
+    //有效订单数
+    private Integer validOrderCount;
+
+    //订单总数
+    private Integer totalOrderCount;
+
+    //新增用户数
+    private Integer newUsers;
+
+    //是否已封存 0否 1是
+    private Integer sealed;
+
+    //更新时间
+    private LocalDateTime updateTime;
+}
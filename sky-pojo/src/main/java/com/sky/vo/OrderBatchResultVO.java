@@ -0,0 +1,23 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBatchResultVO implements Serializable {
+
+    //操作成功的订单id
+    private List<Long> succeeded;
+
+    //不存在或状态不允许操作的订单id
+    private List<Long> failed;
+
+}
@@ -0,0 +1,57 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 通过redis发布/订阅通知所有应用节点清理本地缓存，消息内容为缓存名称
+ */
+@Component
+@Slf4j
+public class CacheInvalidationChannel implements MessageListener {
+
+    public static final String CHANNEL = "cache_invalidate";
+
+    //缓存名称 -> 清理本地缓存的操作，按注册顺序执行
+    private final Map<String, List<Runnable>> handlers = new ConcurrentHashMap<>();
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 注册收到某个缓存的失效消息时执行的操作
+     * @param cacheName
+     * @param handler
+     */
+    public void register(String cacheName, Runnable handler) {
+        handlers.computeIfAbsent(cacheName, k -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * 通知所有节点(包括当前节点)清理某个缓存的本地数据
+     * @param cacheName
+     */
+    public void publish(String cacheName) {
+        stringRedisTemplate.convertAndSend(CHANNEL, cacheName);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String cacheName = new String(message.getBody(), StandardCharsets.UTF_8);
+        List<Runnable> cacheHandlers = handlers.get(cacheName);
+        if (cacheHandlers != null) {
+            log.info("收到缓存失效消息，清理本地缓存:{}", cacheName);
+            cacheHandlers.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+/**
+ * redis value序列化器
+ * smile格式的数据以 [MAGIC, FORMAT_VERSION] 两个字节开头，后面是带类型信息的smile二进制json
+ * 没有该头部的数据按jdk序列化读取，两种格式可以在灰度发布期间共存
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    public static final String CODEC_SMILE = "smile";
+    public static final String CODEC_JDK = "jdk";
+
+    private static final byte MAGIC = (byte) 0xC5;
+    private static final byte FORMAT_VERSION = 1;
+
+    //jdk序列化数据的前两个字节
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    //反序列化时只允许还原为这些包下的类型，redis中被写入的其他类型直接拒绝
+    private static final PolymorphicTypeValidator TYPE_VALIDATOR = BasicPolymorphicTypeValidator.builder()
+            .allowIfSubType("com.sky.")
+            .allowIfSubType("java.util.")
+            .allowIfSubType("java.time.")
+            .allowIfSubType("java.math.")
+            .build();
+
+    private final boolean writeSmile;
+    private final ObjectMapper smileMapper;
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+
+    public CompactRedisSerializer(String codec) {
+        this.writeSmile = !CODEC_JDK.equalsIgnoreCase(codec);
+        this.smileMapper = new ObjectMapper(new SmileFactory());
+        this.smileMapper.registerModule(new JavaTimeModule());
+        //收到未知属性时不报异常，兼容实体类增删字段
+        this.smileMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        //非final类型写入类型信息，读取时还原为原来的对象类型；String、Integer等final类型按json的自然类型还原
+        this.smileMapper.activateDefaultTyping(TYPE_VALIDATOR,
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        //spring cache的空值占位对象需要保持单例，使用jdk序列化
+        if (!writeSmile || value instanceof NullValue) {
+            return jdkSerializer.serialize(value);
+        }
+        try {
+            byte[] body = smileMapper.writeValueAsBytes(value);
+            byte[] bytes = new byte[body.length + 2];
+            bytes[0] = MAGIC;
+            bytes[1] = FORMAT_VERSION;
+            System.arraycopy(body, 0, bytes, 2, body.length);
+            return bytes;
+        } catch (Exception e) {
+            throw new SerializationException("smile序列化失败", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length >= 2 && bytes[0] == MAGIC) {
+            if (bytes[1] != FORMAT_VERSION) {
+                throw new SerializationException("不支持的smile格式版本:" + bytes[1]);
+            }
+            try {
+                return smileMapper.readValue(bytes, 2, bytes.length - 2, Object.class);
+            } catch (Exception e) {
+                throw new SerializationException("smile反序列化失败", e);
+            }
+        }
+        if (bytes.length >= 2 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1) {
+            return jdkSerializer.deserialize(bytes);
+        }
+        throw new SerializationException("无法识别的数据格式:" + Arrays.toString(Arrays.copyOf(bytes, Math.min(bytes.length, 4))));
+    }
+}
@@ -0,0 +1,252 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.properties.MenuCacheProperties;
+import com.sky.vo.DishVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 菜品缓存，key格式为 dish_{版本号}_{分类id}
+ * 修改菜品后递增版本号即可让所有旧缓存失效，旧key不再被读取，到期后由redis自动删除
+ * redis前面还有一层本地缓存，修改菜品时通过redis发布/订阅通知所有节点清理本地缓存
+ * 缓存未命中时同一个分类只有一个线程查询数据库，其他线程等待同一个结果；快到期时按概率提前在后台刷新，同一个分类只排队一个刷新任务
+ */
+@Component
+@Slf4j
+public class DishCache {
+
+    public static final String VERSION_KEY = "dish_version";
+
+    public static final String CACHE_NAME = "dish";
+
+    private static final String KEY_PREFIX = "dish_";
+
+    //不指定分类时查询所有分类的菜品，使用0作为缓存key(本地缓存不支持null)
+    private static final Long ALL_CATEGORIES = 0L;
+
+    //后台刷新任务的最大排队数，队列满时本次不提前刷新
+    private static final int REFRESH_QUEUE_CAPACITY = 64;
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private MenuCacheProperties menuCacheProperties;
+    @Autowired
+    private CacheInvalidationChannel cacheInvalidationChannel;
+
+    //本地缓存：分类id -> 菜品数据
+    private Cache<Long, DishCacheEntry> localCache;
+
+    //正在加载的分类：分类id -> 加载结果
+    private final ConcurrentMap<Long, CompletableFuture<DishCacheEntry>> loading = new ConcurrentHashMap<>();
+
+    //已提交后台刷新的分类，同一个分类同时只排队一个刷新任务
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+
+    //本地缓存每清理一次加1，加载期间被清理过的结果不再放入本地缓存
+    private final AtomicLong localGeneration = new AtomicLong();
+
+    //后台提前刷新缓存的线程
+    private ExecutorService refreshExecutor;
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(menuCacheProperties.getLocalMaximumSize())
+                .expireAfterWrite(Duration.ofSeconds(menuCacheProperties.getLocalTtl()))
+                .build();
+        refreshExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), r -> {
+            Thread thread = new Thread(r, "dish-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cacheInvalidationChannel.register(CACHE_NAME, this::invalidateLocal);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * 查询某个分类下的菜品，未命中时调用loader从数据库加载并写入缓存
+     * @param categoryId 为null时查询所有分类
+     * @param loader
+     * @return
+     */
+    public List<DishVO> get(Long categoryId, Supplier<List<DishVO>> loader) {
+        categoryId = categoryId == null ? ALL_CATEGORIES : categoryId;
+        DishCacheEntry entry = lookup(categoryId);
+        if (entry != null) {
+            if (shouldRefreshEarly(entry)) {
+                refreshEarly(categoryId, entry, loader);
+            }
+            return entry.getValue();
+        }
+
+        try {
+            return load(categoryId, loader).join().getValue();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 清理某个分类下的菜品缓存
+     * @param categoryId
+     */
+    public void evict(Long categoryId) {
+        //所有分类的菜品列表也包含该分类的菜品
+        redisTemplate.delete(List.of(key(categoryId), key(ALL_CATEGORIES)));
+        invalidateLocal();
+        cacheInvalidationChannel.publish(CACHE_NAME);
+    }
+
+    /**
+     * 清理所有分类的菜品缓存，只递增版本号，不扫描redis中的key
+     */
+    public void evictAll() {
+        Long version = stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+        log.info("菜品缓存版本号递增为:{}", version);
+        invalidateLocal();
+        cacheInvalidationChannel.publish(CACHE_NAME);
+    }
+
+    /**
+     * 依次从本地缓存和redis中查询某个分类下的菜品
+     * @param categoryId
+     * @return 都未命中时返回null
+     */
+    private DishCacheEntry lookup(Long categoryId) {
+        DishCacheEntry entry = localCache.getIfPresent(categoryId);
+        if (entry == null) {
+            //旧版本直接缓存的菜品列表按未命中处理
+            Object cached = redisTemplate.opsForValue().get(key(categoryId));
+            entry = cached instanceof DishCacheEntry ? (DishCacheEntry) cached : null;
+            if (entry != null) {
+                localCache.put(categoryId, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 在后台提前刷新某个分类，已经有刷新任务在排队或执行时直接返回
+     * @param categoryId
+     * @param stale 触发刷新时读到的缓存
+     * @param loader
+     */
+    private void refreshEarly(Long categoryId, DishCacheEntry stale, Supplier<List<DishVO>> loader) {
+        if (!refreshing.add(categoryId)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    //排队期间可能已经被其他请求或节点刷新过，读到更新的缓存时不再查询数据库
+                    DishCacheEntry current = lookup(categoryId);
+                    if (current == null || current.getExpireAt() <= stale.getExpireAt()) {
+                        load(categoryId, loader);
+                    }
+                } catch (Exception e) {
+                    log.error("提前刷新菜品缓存失败:{}", categoryId, e);
+                } finally {
+                    refreshing.remove(categoryId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(categoryId);
+        }
+    }
+
+    /**
+     * 加载某个分类下的菜品，同一个分类同时只有一个线程执行loader
+     * @param categoryId
+     * @param loader
+     * @return
+     */
+    private CompletableFuture<DishCacheEntry> load(Long categoryId, Supplier<List<DishVO>> loader) {
+        CompletableFuture<DishCacheEntry> future = new CompletableFuture<>();
+        CompletableFuture<DishCacheEntry> existing = loading.putIfAbsent(categoryId, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            //先确定版本号再查询数据库，加载期间菜品被修改时旧数据只会写入旧版本的key
+            String key = key(categoryId);
+            long generation = localGeneration.get();
+            long start = System.currentTimeMillis();
+            List<DishVO> list = loader.get();
+            long now = System.currentTimeMillis();
+
+            long ttl = TimeUnit.SECONDS.toMillis(menuCacheProperties.getTtl());
+            DishCacheEntry entry = new DishCacheEntry(list, now - start, now + ttl);
+            redisTemplate.opsForValue().set(key, entry, ttl, TimeUnit.MILLISECONDS);
+            if (generation == localGeneration.get()) {
+                localCache.put(categoryId, entry);
+            }
+            future.complete(entry);
+        } catch (Exception e) {
+            log.error("加载菜品缓存失败:{}", categoryId, e);
+            future.completeExceptionally(e);
+        } finally {
+            loading.remove(categoryId, future);
+        }
+        return future;
+    }
+
+    /**
+     * 概率提前刷新：越接近过期、加载越慢，提前刷新的概率越大
+     * now - delta * beta * ln(random) >= expireAt
+     * @param entry
+     * @return
+     */
+    private boolean shouldRefreshEarly(DishCacheEntry entry) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        double gap = -entry.getDelta() * menuCacheProperties.getEarlyRefreshBeta() * Math.log(random);
+        return System.currentTimeMillis() + gap >= entry.getExpireAt();
+    }
+
+    private void invalidateLocal() {
+        localGeneration.incrementAndGet();
+        localCache.invalidateAll();
+    }
+
+    private String key(Long categoryId) {
+        return KEY_PREFIX + currentVersion() + "_" + categoryId;
+    }
+
+    private long currentVersion() {
+        String version = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+        return version == null ? 0 : Long.parseLong(version);
+    }
+}
@@ -0,0 +1,27 @@
+package com.sky.cache;
+
+import com.sky.vo.DishVO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * redis中缓存的菜品数据，附带提前刷新需要的加载耗时和过期时间
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DishCacheEntry implements Serializable {
+
+    //菜品列表
+    private List<DishVO> value;
+
+    //从数据库加载花费的时间，单位毫秒
+    private long delta;
+
+    //过期时间戳，单位毫秒
+    private long expireAt;
+}
@@ -0,0 +1,51 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.properties.MenuCacheProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 为redis缓存管理器创建的每个缓存加上一层本地缓存
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final CacheManager redisCacheManager;
+    private final MenuCacheProperties menuCacheProperties;
+    private final CacheInvalidationChannel invalidationChannel;
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager, MenuCacheProperties menuCacheProperties,
+                                CacheInvalidationChannel invalidationChannel) {
+        this.redisCacheManager = redisCacheManager;
+        this.menuCacheProperties = menuCacheProperties;
+        this.invalidationChannel = invalidationChannel;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    private TwoLevelCache createCache(String name) {
+        TwoLevelCache cache = new TwoLevelCache(name,
+                Caffeine.newBuilder()
+                        .maximumSize(menuCacheProperties.getLocalMaximumSize())
+                        .expireAfterWrite(Duration.ofSeconds(menuCacheProperties.getLocalTtl()))
+                        .build(),
+                redisCacheManager.getCache(name),
+                invalidationChannel);
+        invalidationChannel.register(name, cache::clearLocal);
+        return cache;
+    }
+}
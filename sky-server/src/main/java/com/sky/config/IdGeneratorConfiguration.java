@@ -0,0 +1,22 @@
+package com.sky.config;
+
+import com.sky.properties.IdGeneratorProperties;
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+public class IdGeneratorConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SnowflakeIdGenerator snowflakeIdGenerator(IdGeneratorProperties idGeneratorProperties) {
+        log.info("开始创建id生成器对象:{}", idGeneratorProperties);
+        return new SnowflakeIdGenerator(idGeneratorProperties.getWorkerId(),
+                idGeneratorProperties.getEpoch(),
+                idGeneratorProperties.getMaxBackwardMillis());
+    }
+}
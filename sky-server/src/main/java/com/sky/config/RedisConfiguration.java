@@ -1,17 +1,44 @@
 package com.sky.config;
 
+import com.sky.cache.CacheInvalidationChannel;
+import com.sky.cache.CompactRedisSerializer;
+import com.sky.cache.TwoLevelCacheManager;
+import com.sky.properties.MenuCacheProperties;
+import com.sky.properties.RedisCodecProperties;
+import com.sky.service.impl.ShopStatusServiceImpl;
+import com.sky.websocket.OrderNotifier;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 @Configuration
 @Slf4j
 public class RedisConfiguration {
+
+    //清空缓存时每批SCAN和删除的key数量
+    private static final int CLEAR_BATCH_SIZE = 1000;
+
+    @Bean
+    public CompactRedisSerializer compactRedisSerializer(RedisCodecProperties redisCodecProperties) {
+        log.info("redis value编码格式:{}", redisCodecProperties.getCodec());
+        return new CompactRedisSerializer(redisCodecProperties.getCodec());
+    }
+
     @Bean
-    public RedisTemplate redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate redisTemplate(RedisConnectionFactory redisConnectionFactory, CompactRedisSerializer compactRedisSerializer) {
 
         log.info("开始创建redis模板对象...");
         RedisTemplate redisTemplate = new RedisTemplate<>();
@@ -19,6 +46,43 @@ public class RedisConfiguration {
         redisTemplate.setConnectionFactory(redisConnectionFactory);
         //设置redis key的序列化器
         redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        //设置redis value的序列化器
+        redisTemplate.setValueSerializer(compactRedisSerializer);
+        redisTemplate.setHashValueSerializer(compactRedisSerializer);
         return redisTemplate;
     }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       CacheInvalidationChannel cacheInvalidationChannel,
+                                                                       ShopStatusServiceImpl shopStatusService,
+                                                                       OrderNotifier orderNotifier) {
+        log.info("开始创建redis消息监听容器...");
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        //订阅缓存失效消息
+        container.addMessageListener(cacheInvalidationChannel, new ChannelTopic(CacheInvalidationChannel.CHANNEL));
+        //订阅店铺营业状态变更消息
+        container.addMessageListener(shopStatusService, new ChannelTopic(ShopStatusServiceImpl.CHANNEL));
+        //订阅订单推送消息，推送给当前节点的WebSocket客户端
+        container.addMessageListener(orderNotifier, new ChannelTopic(OrderNotifier.CHANNEL));
+        return container;
+    }
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, MenuCacheProperties menuCacheProperties,
+                                     CacheInvalidationChannel cacheInvalidationChannel, CompactRedisSerializer compactRedisSerializer) {
+        log.info("开始创建二级缓存管理器...");
+        //清空缓存(@CacheEvict(allEntries = true))时分批SCAN删除，不使用阻塞redis的KEYS命令
+        RedisCacheWriter redisCacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory,
+                BatchStrategies.scan(CLEAR_BATCH_SIZE));
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisCacheWriter)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(Duration.ofSeconds(menuCacheProperties.getTtl()))
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(compactRedisSerializer)))
+                .build();
+        redisCacheManager.initializeCaches();
+        return new TwoLevelCacheManager(redisCacheManager, menuCacheProperties, cacheInvalidationChannel);
+    }
 }
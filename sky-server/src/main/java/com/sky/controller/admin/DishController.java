@@ -1,5 +1,6 @@
 package com.sky.controller.admin;
 
+import com.sky.cache.DishCache;
 import com.sky.dto.DishDTO;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
@@ -12,11 +13,9 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/admin/dish")
@@ -26,15 +25,14 @@ public class DishController {
     @Autowired
     private DishService dishService;
     @Autowired
-    private RedisTemplate redisTemplate;
+    private DishCache dishCache;
     @PostMapping
     @Operation(summary = "新增菜品")
     public Result save(@RequestBody DishDTO dishDTO) {
         log.info("新增菜品:{}", dishDTO);
         dishService.saveWithFlavor(dishDTO);
 
-        String key = "dish_" + dishDTO.getCategoryId();
-        cleanCache(key);
+        dishCache.evict(dishDTO.getCategoryId());
         return Result.success();
     }
 
@@ -52,7 +50,7 @@ public class DishController {
         log.info("菜品批量删除:{}",ids);
         dishService.deleteBatch(ids);
 
-        cleanCache("dish_*");
+        dishCache.evictAll();
         return Result.success();
     }
 
@@ -69,7 +67,7 @@ public class DishController {
         log.info("修改菜品,{}",dishDTO);
         dishService.updateWithFlavors(dishDTO);
 
-        cleanCache("dish_*");
+        dishCache.evictAll();
         return Result.success();
     }
 
@@ -78,7 +76,7 @@ public class DishController {
     public Result startOrStop(@PathVariable("status") @Parameter(name = "status") Integer status, @RequestParam("id") @Parameter(name = "id") Long id) {
         log.info("起售停售菜品:{},{}",status,id);
         dishService.starOrStop(status,id);
-        cleanCache("dish_*");
+        dishCache.evictAll();
         return Result.success();
     }
 
@@ -88,9 +86,4 @@ public class DishController {
         List<Dish> list = dishService.list(categoryId);
         return Result.success(list);
     }
-
-    private void cleanCache(String pattern) {
-        Set keys = redisTemplate.keys(pattern);
-        redisTemplate.delete(keys);
-    }
 }
@@ -1,12 +1,15 @@
 package com.sky.controller.admin;
 
+import com.sky.dto.OrdersBatchDTO;
 import com.sky.dto.OrdersCancelDTO;
 import com.sky.dto.OrdersConfirmDTO;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.dto.OrdersRejectionDTO;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.OrderService;
+import com.sky.vo.OrderBatchResultVO;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderVO;
 import io.swagger.v3.oas.annotations.Operation;
@@ -32,6 +35,13 @@ public class OrderController {
         return Result.success(pageResult);
     }
 
+    @GetMapping("/conditionSearch/cursor")
+    @Operation(summary = "订单搜索(游标分页)")
+    public Result<CursorPageResult> conditionSearchByCursor(OrdersPageQueryDTO ordersPageQueryDTO) {
+        CursorPageResult cursorPageResult = orderService.conditionSearchByCursor(ordersPageQueryDTO);
+        return Result.success(cursorPageResult);
+    }
+
     @GetMapping("/statistics")
     @Operation(summary = "各个状态的订单数量统计")
     public Result<OrderStatisticsVO> statistics() {
@@ -81,4 +91,32 @@ public class OrderController {
         return Result.success();
     }
 
+    @PutMapping("/batch/confirm")
+    @Operation(summary = "批量接单")
+    public Result<OrderBatchResultVO> batchConfirm(@RequestBody OrdersBatchDTO ordersBatchDTO) {
+        log.info("批量接单:{}", ordersBatchDTO.getIds());
+        return Result.success(orderService.batchConfirm(ordersBatchDTO.getIds()));
+    }
+
+    @PutMapping("/batch/rejection")
+    @Operation(summary = "批量拒单")
+    public Result<OrderBatchResultVO> batchRejection(@RequestBody OrdersBatchDTO ordersBatchDTO) throws Exception {
+        log.info("批量拒单:{}", ordersBatchDTO);
+        return Result.success(orderService.batchRejection(ordersBatchDTO));
+    }
+
+    @PutMapping("/batch/delivery")
+    @Operation(summary = "批量派送")
+    public Result<OrderBatchResultVO> batchDelivery(@RequestBody OrdersBatchDTO ordersBatchDTO) {
+        log.info("批量派送:{}", ordersBatchDTO.getIds());
+        return Result.success(orderService.batchDelivery(ordersBatchDTO.getIds()));
+    }
+
+    @PutMapping("/batch/complete")
+    @Operation(summary = "批量完成")
+    public Result<OrderBatchResultVO> batchComplete(@RequestBody OrdersBatchDTO ordersBatchDTO) {
+        log.info("批量完成:{}", ordersBatchDTO.getIds());
+        return Result.success(orderService.batchComplete(ordersBatchDTO.getIds()));
+    }
+
 }
@@ -65,7 +65,18 @@ public class ReportController {
 
     @GetMapping("/export")
     @Operation(summary = "导出运营数据报表")
-    public void export(HttpServletResponse response) {
-        reportService.exportBusinessData(response);
+    public void export(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            HttpServletResponse response) {
+        //默认导出最近30天的数据
+        if (end == null) {
+            end = LocalDate.now().minusDays(1);
+        }
+        if (begin == null) {
+            begin = end.minusDays(29);
+        }
+        log.info("导出运营数据报表:{},{}", begin, end);
+        reportService.exportBusinessData(begin, end, response);
     }
 }
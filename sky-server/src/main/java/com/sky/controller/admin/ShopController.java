@@ -1,11 +1,11 @@
 package com.sky.controller.admin;
 
 import com.sky.result.Result;
+import com.sky.service.ShopStatusService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
 @RestController("adminShopController")
@@ -14,17 +14,15 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class ShopController {
 
-    public static final String KEY = "SHOP_STATUS";
-
     @Autowired
-    private RedisTemplate redisTemplate;
+    private ShopStatusService shopStatusService;
 
 
     @PutMapping("/{status}")
     @Operation(summary = "设置店铺的营业状态")
     public Result setStatus(@PathVariable Integer status) {
         log.info("设置店铺的营业状态为：{}", status == 1 ? "营业中" : "打样中");
-        redisTemplate.opsForValue().set(KEY,status);
+        shopStatusService.setStatus(status);
         return Result.success();
     }
 
@@ -32,8 +30,8 @@ public class ShopController {
     @GetMapping("/status")
     @Operation(summary = "获取店铺的营业状态")
     public Result<Integer> getStatus() {
-        Integer status=(Integer) redisTemplate.opsForValue().get(KEY);
-        log.info("获取店铺的营业状态为:{}",status == 1 ? "营业中" : "打样中");
+        Integer status = shopStatusService.getStatus();
+        log.info("获取店铺的营业状态为:{}", shopStatusService.isOpen() ? "营业中" : "打样中");
         return Result.success(status);
     }
 
@@ -1,20 +1,16 @@
 package com.sky.controller.user;
 
-import com.sky.constant.StatusConstant;
-import com.sky.entity.Dish;
-import com.sky.result.Result;
-import com.sky.service.DishService;
-import com.sky.vo.DishVO;
-
+import com.sky.service.MenuSnapshotService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.List;
+import java.io.IOException;
 
 @RestController("userDishController")
 @RequestMapping("/user/dish")
@@ -22,28 +18,13 @@ import java.util.List;
 @Tag(name = "C端-菜品浏览接口")
 public class DishController {
     @Autowired
-    private DishService dishService;
-    @Autowired
-    private RedisTemplate redisTemplate;
+    private MenuSnapshotService menuSnapshotService;
 
     @GetMapping("/list")
     @Operation(summary = "根据分类id查询菜品")
-    public Result<List<DishVO>> list(Long categoryId) {
-        String key="dish_"+categoryId;
-
-        List<DishVO> list =(List<DishVO>) redisTemplate.opsForValue().get(key);
-        if(list!=null&&list.size()>0){
-            return Result.success(list);
-        }
-
-        Dish dish = new Dish();
-        dish.setCategoryId(categoryId);
-        dish.setStatus(StatusConstant.ENABLE);//查询起售中的菜品
-
-        list = dishService.listWithFlavor(dish);
-        redisTemplate.opsForValue().set(key,list);
-
-        return Result.success(list);
+    public void list(Long categoryId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        //直接返回预先序列化好的快照，客户端数据未变化时返回304
+        menuSnapshotService.getDishSnapshot(categoryId).write(request, response);
     }
 
 }
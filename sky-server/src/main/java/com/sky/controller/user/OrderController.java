@@ -1,10 +1,13 @@
 package com.sky.controller.user;
 
+import com.sky.context.BaseContext;
 import com.sky.dto.OrdersPaymentDTO;
 import com.sky.dto.OrdersSubmitDTO;
 import com.sky.entity.Orders;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.service.IdempotencyService;
 import com.sky.service.OrderService;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderSubmitVO;
@@ -21,14 +24,24 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class OrderController {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @Autowired
     private OrderService orderService;
+    @Autowired
+    private IdempotencyService idempotencyService;
 
     @PostMapping("/submit")
     @Operation(summary = "用户下单")
-    public Result<OrderSubmitVO> submit(@RequestBody OrdersSubmitDTO ordersSubmitDTO) {
-        log.info("用户下单，参数为:{}", ordersSubmitDTO);
-        OrderSubmitVO orderSubmitVO = orderService.submitOrder(ordersSubmitDTO);
+    public Result<OrderSubmitVO> submit(@RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                        @RequestBody OrdersSubmitDTO ordersSubmitDTO) {
+        log.info("用户下单，参数为:{}，幂等键:{}", ordersSubmitDTO, idempotencyKey);
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return Result.success(orderService.submitOrder(ordersSubmitDTO));
+        }
+        //同一个用户相同幂等键的下单请求只执行一次，重复提交返回第一次的订单
+        String key = "order_submit:" + BaseContext.getCurrentId() + ":" + idempotencyKey;
+        OrderSubmitVO orderSubmitVO = idempotencyService.execute(key, () -> orderService.submitOrder(ordersSubmitDTO));
         return Result.success(orderSubmitVO);
     }
 
@@ -49,6 +62,13 @@ public class OrderController {
 
     }
 
+    @GetMapping("/historyOrders/cursor")
+    @Operation(summary = "游标分页查询历史订单")
+    public Result<CursorPageResult> historyByCursor(String cursor, @RequestParam(defaultValue = "10") int pageSize, Integer status) {
+        CursorPageResult cursorPageResult = orderService.cursorQuery(cursor, pageSize, status);
+        return Result.success(cursorPageResult);
+    }
+
     @GetMapping("/orderDetail/{id}")
     @Operation(summary = "查询订单详情")
     public Result<OrderVO> details(@PathVariable Long id) {
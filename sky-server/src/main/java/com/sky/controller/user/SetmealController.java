@@ -1,51 +1,39 @@
 package com.sky.controller.user;
 
-import com.sky.constant.StatusConstant;
-import com.sky.entity.Setmeal;
-import com.sky.result.Result;
-import com.sky.service.SetmealService;
-import com.sky.vo.DishItemVO;
-
+import com.sky.service.MenuSnapshotService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.List;
+import java.io.IOException;
 
 @RestController("userSetmealController")
 @RequestMapping("/user/setmeal")
 @Tag(name = "C端-套餐浏览接口")
 public class SetmealController {
     @Autowired
-    private SetmealService setmealService;
+    private MenuSnapshotService menuSnapshotService;
 
     /**
      * 条件查询
      *
      * @param categoryId
-     * @return
      */
     @GetMapping("/list")
     @Operation(summary = "根据分类id查询套餐")
-    @Cacheable(cacheNames = "setMealCache",key="#categoryId")
-    public Result<List<Setmeal>> list(Long categoryId) {
-        Setmeal setmeal = new Setmeal();
-        setmeal.setCategoryId(categoryId);
-        setmeal.setStatus(StatusConstant.ENABLE);
-
-        List<Setmeal> list = setmealService.list(setmeal);
-        return Result.success(list);
+    public void list(Long categoryId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        menuSnapshotService.getSetmealSnapshot(categoryId).write(request, response);
     }
 
 
     @GetMapping("/dish/{id}")
     @Operation(summary = "根据套餐id查询包含的菜品列表")
-    public Result<List<DishItemVO>> dishList(@PathVariable("id") Long id) {
-        List<DishItemVO> list = setmealService.getDishItemById(id);
-        return Result.success(list);
+    public void dishList(@PathVariable("id") Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        menuSnapshotService.getSetmealDishSnapshot(id).write(request, response);
     }
 }
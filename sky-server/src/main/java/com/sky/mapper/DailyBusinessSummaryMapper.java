@@ -0,0 +1,49 @@
+package com.sky.mapper;
+
+import com.sky.entity.DailyBusinessSummary;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface DailyBusinessSummaryMapper {
+
+    /**
+     * 在未封存的汇总数据上累加增量，当天记录不存在时插入
+     * @param delta
+     */
+    void increase(DailyBusinessSummary delta);
+
+    /**
+     * 用对账结果覆盖未封存的汇总数据，已封存的数据保持不变
+     * @param summary
+     */
+    void saveOrReplace(DailyBusinessSummary summary);
+
+    /**
+     * 某天的汇总记录不存在时插入全为0的记录，已存在时不修改
+     * @param date
+     * @param updateTime
+     */
+    @Insert("insert into daily_business_summary (date, sealed, update_time) values (#{date}, 0, #{updateTime}) " +
+            "on duplicate key update date = date")
+    void insertIfAbsent(LocalDate date, LocalDateTime updateTime);
+
+    /**
+     * 查询并锁定某天的汇总记录，对账期间的累加等待对账提交
+     * @param date
+     * @return
+     */
+    @Select("select * from daily_business_summary where date = #{date} for update")
+    DailyBusinessSummary getByDateForUpdate(LocalDate date);
+
+    @Select("select * from daily_business_summary where date between #{begin} and #{end} order by date")
+    List<DailyBusinessSummary> list(LocalDate begin, LocalDate end);
+
+    @Select("select date from daily_business_summary where sealed = 0 and date < #{date}")
+    List<LocalDate> getUnsealedDatesBefore(LocalDate date);
+}
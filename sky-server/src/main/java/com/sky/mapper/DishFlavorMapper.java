@@ -21,4 +21,11 @@ public interface DishFlavorMapper {
 
     @Select("select * from dish_flavor where dish_id=#{dishId}")
     List<DishFlavor> getByDishId(Long dishId);
+
+    /**
+     * 批量查询多个菜品的口味
+     * @param dishIds
+     * @return
+     */
+    List<DishFlavor> getByDishIds(List<Long> dishIds);
 }
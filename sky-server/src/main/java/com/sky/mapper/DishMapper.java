@@ -5,6 +5,7 @@ import com.sky.annotation.AutoFill;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
 import com.sky.enumeration.OperationType;
+import com.sky.vo.DishOverViewVO;
 import com.sky.vo.DishVO;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
@@ -46,4 +47,11 @@ public interface DishMapper {
     List<Dish> getBySetmealId(Long id);
 
     Integer countByMap(Map map);
+
+    /**
+     * 一次查询统计起售和停售的数量
+     * @return
+     */
+    @Select("select ifnull(sum(status = 1), 0) sold, ifnull(sum(status = 0), 0) discontinued from dish")
+    DishOverViewVO countOverView();
 }
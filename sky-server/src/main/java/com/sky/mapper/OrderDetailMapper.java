@@ -12,4 +12,11 @@ public interface OrderDetailMapper {
 
     @Select("select * from order_detail where order_id=#{orderId}")
     List<OrderDetail> getByOrderId(Long orderId);
+
+    /**
+     * 批量查询多个订单的明细
+     * @param orderIds
+     * @return
+     */
+    List<OrderDetail> getByOrderIds(List<Long> orderIds);
 }
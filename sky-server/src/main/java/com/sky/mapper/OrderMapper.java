@@ -1,7 +1,9 @@
 package com.sky.mapper;
 
 import com.github.pagehelper.Page;
+import com.sky.dto.DailyStatisticsDTO;
 import com.sky.dto.GoodsSalesDTO;
+import com.sky.dto.OrderStatusCountDTO;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.entity.Orders;
 import org.apache.ibatis.annotations.Mapper;
@@ -28,6 +30,13 @@ public interface OrderMapper {
 
     Page<Orders> pageQuery(OrdersPageQueryDTO ordersPageQueryDTO);
 
+    /**
+     * 游标分页查询，不统计总记录数，最多返回pageSize+1条
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    List<Orders> cursorQuery(OrdersPageQueryDTO ordersPageQueryDTO);
+
     @Select("select * from orders where id=#{id}")
     Orders getById(Long id);
 
@@ -37,9 +46,64 @@ public interface OrderMapper {
     @Select("select * from orders where status=#{status} and order_time<#{orderTime}")
     List<Orders> getByStatusAndOrderTimeLT(Integer status,LocalDateTime orderTime);
 
+    @Select("select id, order_time from orders where status = #{status}")
+    List<Orders> getIdAndOrderTimeByStatus(Integer status);
+
+    @Select("select id, order_time from orders where status=#{status} and order_time<#{orderTime}")
+    List<Orders> getIdAndOrderTimeByStatusAndOrderTimeLT(Integer status, LocalDateTime orderTime);
+
+    /**
+     * 查询并锁定处于指定状态的订单，需要在事务中调用
+     * @param ids
+     * @param status
+     * @return
+     */
+    List<Orders> getByIdsAndStatusForUpdate(List<Long> ids, Integer status);
+
+    /**
+     * 更新订单，只有订单仍处于fromStatus状态时才更新
+     * @param id
+     * @param fromStatus
+     * @param orders 要更新的字段
+     * @return 实际更新的行数
+     */
+    int updateByIdAndStatus(Long id, Integer fromStatus, Orders orders);
+
+    /**
+     * 批量更新订单，只更新仍处于fromStatus状态的订单
+     * @param ids
+     * @param fromStatus
+     * @param orders 要更新的字段
+     * @return 实际更新的行数
+     */
+    int updateByIdsAndStatus(List<Long> ids, Integer fromStatus, Orders orders);
+
+    /**
+     * 一次查询统计各个状态的订单数量
+     * @param begin 下单时间的开始时间，为null时统计全部订单
+     * @return
+     */
+    OrderStatusCountDTO countGroupByStatus(LocalDateTime begin);
+
     Double sumByMap(Map map);
 
     Integer countByMap(Map map);
 
     List<GoodsSalesDTO> getSalesTop(LocalDateTime begin, LocalDateTime end);
+
+    /**
+     * 按天分组统计订单总数、有效订单数和营业额
+     * @param begin
+     * @param end
+     * @param status 有效订单的状态
+     * @return
+     */
+    List<DailyStatisticsDTO> getDailyStatistics(LocalDateTime begin, LocalDateTime end, Integer status);
+
+    /**
+     * 按下单日期分组统计指定订单的数量和金额
+     * @param ids
+     * @return
+     */
+    List<DailyStatisticsDTO> sumByIdsGroupByDate(List<Long> ids);
 }
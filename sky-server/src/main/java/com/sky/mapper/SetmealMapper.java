@@ -6,6 +6,7 @@ import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.entity.Setmeal;
 import com.sky.enumeration.OperationType;
 import com.sky.vo.DishItemVO;
+import com.sky.vo.SetmealOverViewVO;
 import com.sky.vo.SetmealVO;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
@@ -48,4 +49,11 @@ public interface SetmealMapper {
     List<DishItemVO> getDishItemBySetmealId(Long setmealId);
 
     Integer countByMap(Map map);
+
+    /**
+     * 一次查询统计起售和停售的数量
+     * @return
+     */
+    @Select("select ifnull(sum(status = 1), 0) sold, ifnull(sum(status = 0), 0) discontinued from setmeal")
+    SetmealOverViewVO countOverView();
 }
@@ -0,0 +1,100 @@
+package com.sky.order;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 订单状态机，集中定义允许的状态流转
+ * 状态变更使用 where id = ? and status = ? 的条件更新，并发修改同一个订单时只有一个能成功，不需要先查询订单
+ * 更新成功后同步更新各状态的订单数量
+ */
+@Component
+@Slf4j
+public class OrderStateMachine {
+
+    //当前状态 -> 允许流转到的状态
+    private static final Map<Integer, Set<Integer>> TRANSITIONS = Map.of(
+            //支付、超时或用户取消
+            Orders.PENDING_PAYMENT, Set.of(Orders.TO_BE_CONFIRMED, Orders.CANCELLED),
+            //接单、拒单或取消
+            Orders.TO_BE_CONFIRMED, Set.of(Orders.CONFIRMED, Orders.CANCELLED),
+            //派送或取消
+            Orders.CONFIRMED, Set.of(Orders.DELIVERY_IN_PROGRESS, Orders.CANCELLED),
+            //完成或取消
+            Orders.DELIVERY_IN_PROGRESS, Set.of(Orders.COMPLETED, Orders.CANCELLED),
+            //商家取消已完成的订单
+            Orders.COMPLETED, Set.of(Orders.CANCELLED)
+    );
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+
+    /**
+     * 是否允许从from状态流转到to状态
+     * @param from
+     * @param to
+     * @return
+     */
+    public boolean canTransition(Integer from, Integer to) {
+        return TRANSITIONS.getOrDefault(from, Set.of()).contains(to);
+    }
+
+    /**
+     * 订单从from状态流转到to状态
+     * @param id
+     * @param from
+     * @param to
+     * @param changes 同时更新的其他字段，可以为null
+     * @return 订单仍处于from状态并更新成功时返回true
+     */
+    public boolean transition(Long id, Integer from, Integer to, Orders changes) {
+        boolean success = orderMapper.updateByIdAndStatus(id, from, target(from, to, changes)) == 1;
+        if (success) {
+            orderStatusCounter.transitioned(from, to, 1);
+        }
+        return success;
+    }
+
+    /**
+     * 批量流转，只更新仍处于from状态的订单
+     * @param ids
+     * @param from
+     * @param to
+     * @param changes 同时更新的其他字段，可以为null
+     * @return 实际流转的订单数
+     */
+    public int transition(List<Long> ids, Integer from, Integer to, Orders changes) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        int count = orderMapper.updateByIdsAndStatus(ids, from, target(from, to, changes));
+        orderStatusCounter.transitioned(from, to, count);
+        return count;
+    }
+
+    private Orders target(Integer from, Integer to, Orders changes) {
+        if (!canTransition(from, to)) {
+            throw new IllegalArgumentException("不允许的订单状态流转:" + from + "->" + to);
+        }
+        Orders orders = new Orders();
+        if (changes != null) {
+            orders.setCancelReason(changes.getCancelReason());
+            orders.setRejectionReason(changes.getRejectionReason());
+            orders.setCancelTime(changes.getCancelTime());
+            orders.setPayStatus(changes.getPayStatus());
+            orders.setCheckoutTime(changes.getCheckoutTime());
+            orders.setDeliveryTime(changes.getDeliveryTime());
+        }
+        orders.setStatus(to);
+        return orders;
+    }
+}
@@ -0,0 +1,134 @@
+package com.sky.order;
+
+import com.sky.dto.OrderStatusCountDTO;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.utils.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 各个状态的订单数量，保存在redis哈希中：状态 -> 数量
+ * 下单和状态流转的事务提交后增量更新，管理端查询时不访问订单表；定时根据订单表重新统计，修正redis故障等原因产生的偏差
+ */
+@Component
+@Slf4j
+public class OrderStatusCounter {
+
+    public static final String KEY = "order_status_count";
+
+    //每次增量更新都加1，重新统计期间有增量更新时不覆盖
+    private static final String VERSION = "version";
+
+    private static final List<Integer> STATUSES = List.of(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, Orders.CONFIRMED,
+            Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, Orders.CANCELLED);
+
+    //只在已有的哈希上累加，不存在时由查询或重新统计初始化，避免只有部分状态的数据
+    private static final DefaultRedisScript<Long> INCREASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+                    "for i = 1, #ARGV, 2 do redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+                    "redis.call('HINCRBY', KEYS[1], '" + VERSION + "', 1) " +
+                    "return 1", Long.class);
+
+    //版本号与统计前读取的一致时才覆盖
+    private static final DefaultRedisScript<Long> SAVE_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('HGET', KEYS[1], '" + VERSION + "') or '0') ~= ARGV[1] then return 0 end " +
+                    "for i = 2, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+                    "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderMapper orderMapper;
+
+    /**
+     * 新增订单
+     * @param status
+     */
+    public void created(Integer status) {
+        increase(status.toString(), "1");
+    }
+
+    /**
+     * 订单从from状态流转到to状态
+     * @param from
+     * @param to
+     * @param count 流转的订单数
+     */
+    public void transitioned(Integer from, Integer to, long count) {
+        if (count <= 0) {
+            return;
+        }
+        increase(from.toString(), String.valueOf(-count), to.toString(), String.valueOf(count));
+    }
+
+    /**
+     * 查询各个状态的订单数量，只读取一次redis
+     * @return 状态 -> 数量
+     */
+    public Map<Integer, Integer> getAll() {
+        Map<Object, Object> counts = stringRedisTemplate.opsForHash().entries(KEY);
+        if (counts.isEmpty()) {
+            counts = new HashMap<>(reconcile());
+        }
+        Map<Integer, Integer> result = new HashMap<>();
+        for (Integer status : STATUSES) {
+            Object count = counts.get(status.toString());
+            result.put(status, count == null ? 0 : Math.max(Integer.parseInt(count.toString()), 0));
+        }
+        return result;
+    }
+
+    /**
+     * 根据订单表重新统计，统计期间有增量更新时本次不覆盖redis，由下一次重新统计修正
+     * @return
+     */
+    public Map<String, String> reconcile() {
+        Object version = stringRedisTemplate.opsForHash().get(KEY, VERSION);
+        OrderStatusCountDTO count = orderMapper.countGroupByStatus(null);
+        Map<String, String> counts = new HashMap<>();
+        counts.put(Orders.PENDING_PAYMENT.toString(), count.getPendingPayment().toString());
+        counts.put(Orders.TO_BE_CONFIRMED.toString(), count.getToBeConfirmed().toString());
+        counts.put(Orders.CONFIRMED.toString(), count.getConfirmed().toString());
+        counts.put(Orders.DELIVERY_IN_PROGRESS.toString(), count.getDeliveryInProgress().toString());
+        counts.put(Orders.COMPLETED.toString(), count.getCompleted().toString());
+        counts.put(Orders.CANCELLED.toString(), count.getCancelled().toString());
+
+        List<String> args = new ArrayList<>();
+        args.add(version == null ? "0" : version.toString());
+        counts.forEach((status, value) -> {
+            args.add(status);
+            args.add(value);
+        });
+        Long saved = stringRedisTemplate.execute(SAVE_SCRIPT, Collections.singletonList(KEY), args.toArray());
+        if (Long.valueOf(1).equals(saved)) {
+            log.info("重新统计各状态订单数量:{}", counts);
+        } else {
+            log.info("重新统计期间订单数量有变化，本次不覆盖:{}", counts);
+        }
+        return counts;
+    }
+
+    /**
+     * 在当前事务提交后累加，事务回滚时不修改；redis不可用时不影响业务，下次重新统计时修正
+     * @param args 状态和增量交替排列
+     */
+    private void increase(String... args) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                stringRedisTemplate.execute(INCREASE_SCRIPT, Collections.singletonList(KEY), (Object[]) args);
+            } catch (Exception e) {
+                log.warn("更新订单数量失败", e);
+            }
+        });
+    }
+}
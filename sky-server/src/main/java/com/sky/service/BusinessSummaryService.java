@@ -0,0 +1,50 @@
+package com.sky.service;
+
+import com.sky.dto.DailyStatisticsDTO;
+import com.sky.entity.Orders;
+import com.sky.entity.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BusinessSummaryService {
+
+    /**
+     * 用户下单，累加订单总数
+     * @param orders
+     */
+    void orderSubmitted(Orders orders);
+
+    /**
+     * 订单完成，累加有效订单数和营业额
+     * @param orderIds
+     */
+    void orderCompleted(List<Long> orderIds);
+
+    /**
+     * 订单取消，已完成的订单需要扣减有效订单数和营业额
+     * @param ordersDB 取消前的订单数据
+     */
+    void orderCancelled(Orders ordersDB);
+
+    /**
+     * 新用户注册，累加新增用户数
+     * @param user
+     */
+    void userRegistered(User user);
+
+    /**
+     * 查询[begin, end]区间内每天的营业数据，没有汇总记录的日期实时统计，只查询今天时读取redis中的实时数据
+     * @param begin
+     * @param end
+     * @return
+     */
+    List<DailyStatisticsDTO> listDaily(LocalDate begin, LocalDate end);
+
+    /**
+     * 根据订单表和用户表重新统计某天的营业数据
+     * @param date
+     * @param seal 是否封存，封存后不再修改
+     */
+    void reconcile(LocalDate date, boolean seal);
+}
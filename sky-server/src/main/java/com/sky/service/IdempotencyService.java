@@ -0,0 +1,16 @@
+package com.sky.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * 幂等执行：同一个幂等键只执行一次action，重复请求直接返回第一次的结果
+     * 第一次执行还未完成时，重复请求等待其结果，等待超时抛出RequestInProgressException
+     * action抛出异常时不记录结果，可以使用同一个幂等键重试
+     * @param key 幂等键
+     * @param action
+     * @return
+     */
+    <T> T execute(String key, Supplier<T> action);
+}
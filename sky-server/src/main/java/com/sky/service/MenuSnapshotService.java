@@ -0,0 +1,27 @@
+package com.sky.service;
+
+import com.sky.cache.MenuSnapshot;
+
+public interface MenuSnapshotService {
+
+    /**
+     * 根据分类id查询起售中菜品的响应快照
+     * @param categoryId
+     * @return
+     */
+    MenuSnapshot getDishSnapshot(Long categoryId);
+
+    /**
+     * 根据分类id查询起售中套餐的响应快照
+     * @param categoryId
+     * @return
+     */
+    MenuSnapshot getSetmealSnapshot(Long categoryId);
+
+    /**
+     * 根据套餐id查询包含菜品的响应快照
+     * @param setmealId
+     * @return
+     */
+    MenuSnapshot getSetmealDishSnapshot(Long setmealId);
+}
@@ -1,12 +1,16 @@
 package com.sky.service;
 
 import com.sky.dto.*;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
+import com.sky.vo.OrderBatchResultVO;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
 
+import java.util.List;
+
 public interface OrderService {
     OrderSubmitVO submitOrder(OrdersSubmitDTO ordersSubmitDTO);
 
@@ -17,6 +21,15 @@ public interface OrderService {
 
     PageResult pageQuery(int page, int pageSize, Integer status);
 
+    /**
+     * 游标分页查询当前用户的历史订单
+     * @param cursor
+     * @param pageSize
+     * @param status
+     * @return
+     */
+    CursorPageResult cursorQuery(String cursor, int pageSize, Integer status);
+
     OrderVO details(Long id);
 
     void cancel(Long id) throws Exception;
@@ -25,6 +38,13 @@ public interface OrderService {
 
     PageResult conditionSearch(OrdersPageQueryDTO orderspageQueryDTO);
 
+    /**
+     * 游标分页条件搜索订单
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    CursorPageResult conditionSearchByCursor(OrdersPageQueryDTO ordersPageQueryDTO);
+
     OrderStatisticsVO statistics();
 
     void confirm(OrdersConfirmDTO ordersConfirmDTO);
@@ -38,4 +58,32 @@ public interface OrderService {
     void complete(Long id);
 
     void reminder(Long id);
+
+    /**
+     * 批量接单
+     * @param ids
+     * @return
+     */
+    OrderBatchResultVO batchConfirm(List<Long> ids);
+
+    /**
+     * 批量拒单
+     * @param ordersBatchDTO
+     * @return
+     */
+    OrderBatchResultVO batchRejection(OrdersBatchDTO ordersBatchDTO) throws Exception;
+
+    /**
+     * 批量派送
+     * @param ids
+     * @return
+     */
+    OrderBatchResultVO batchDelivery(List<Long> ids);
+
+    /**
+     * 批量完成
+     * @param ids
+     * @return
+     */
+    OrderBatchResultVO batchComplete(List<Long> ids);
 }
@@ -19,5 +19,11 @@ public interface ReportService {
 
     SalesTop10ReportVO getSalesTop10(LocalDate begin, LocalDate end);
 
-    void exportBusinessData(HttpServletResponse response);
+    /**
+     * 导出[begin, end]区间内的运营数据报表，区间最多366天
+     * @param begin
+     * @param end
+     * @param response
+     */
+    void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse response);
 }
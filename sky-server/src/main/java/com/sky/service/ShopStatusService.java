@@ -0,0 +1,22 @@
+package com.sky.service;
+
+public interface ShopStatusService {
+
+    /**
+     * 设置店铺的营业状态，并通知所有节点刷新本地状态
+     * @param status
+     */
+    void setStatus(Integer status);
+
+    /**
+     * 获取店铺的营业状态，直接读取本地状态
+     * @return
+     */
+    Integer getStatus();
+
+    /**
+     * 店铺是否营业中
+     * @return
+     */
+    boolean isOpen();
+}
@@ -0,0 +1,353 @@
+package com.sky.service.impl;
+
+import com.sky.dto.DailyStatisticsDTO;
+import com.sky.entity.DailyBusinessSummary;
+import com.sky.entity.Orders;
+import com.sky.entity.User;
+import com.sky.mapper.DailyBusinessSummaryMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessSummaryService;
+import com.sky.utils.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class BusinessSummaryServiceImpl implements BusinessSummaryService {
+
+    //redis中每天的实时营业数据，key为 business_daily:{日期}
+    private static final String COUNTER_KEY_PREFIX = "business_daily:";
+    private static final long COUNTER_TTL_DAYS = 2;
+
+    private static final String TURNOVER = "turnover";
+    private static final String VALID_ORDER_COUNT = "validOrderCount";
+    private static final String TOTAL_ORDER_COUNT = "totalOrderCount";
+    private static final String NEW_USERS = "newUsers";
+    //每次累加都加1，对账期间有累加时不覆盖
+    private static final String VERSION = "version";
+
+    //还没有初始化数据时只增加版本号，由查询或对账初始化，正在初始化的查询发现版本号变化后不覆盖；ARGV[5]为过期时间(秒)
+    private static final DefaultRedisScript<Long> INCREASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], '" + TURNOVER + "') == 0 then " +
+                    "redis.call('HINCRBY', KEYS[1], '" + VERSION + "', 1) " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[5]) " +
+                    "return 0 end " +
+                    "redis.call('HINCRBYFLOAT', KEYS[1], '" + TURNOVER + "', ARGV[1]) " +
+                    "redis.call('HINCRBY', KEYS[1], '" + VALID_ORDER_COUNT + "', ARGV[2]) " +
+                    "redis.call('HINCRBY', KEYS[1], '" + TOTAL_ORDER_COUNT + "', ARGV[3]) " +
+                    "redis.call('HINCRBY', KEYS[1], '" + NEW_USERS + "', ARGV[4]) " +
+                    "redis.call('HINCRBY', KEYS[1], '" + VERSION + "', 1) " +
+                    "return 1", Long.class);
+
+    //版本号与统计前读取的一致时才覆盖，ARGV[1]为版本号，ARGV[2]为过期时间(秒)，之后是字段和值
+    private static final DefaultRedisScript<Long> SAVE_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('HGET', KEYS[1], '" + VERSION + "') or '0') ~= ARGV[1] then return 0 end " +
+                    "for i = 3, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+                    "return 1", Long.class);
+
+    @Autowired
+    private DailyBusinessSummaryMapper dailyBusinessSummaryMapper;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    //业务事务提交后在新的事务中累加汇总数据
+    private TransactionTemplate requiresNewTemplate;
+
+    @PostConstruct
+    public void init() {
+        requiresNewTemplate = new TransactionTemplate(transactionManager);
+        requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void orderSubmitted(Orders orders) {
+        increase(delta(orders.getOrderTime().toLocalDate(), BigDecimal.ZERO, 0, 1, 0));
+    }
+
+    @Override
+    public void orderCompleted(List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return;
+        }
+        //按下单日期累加有效订单数和营业额
+        for (DailyStatisticsDTO statistics : orderMapper.sumByIdsGroupByDate(orderIds)) {
+            increase(delta(statistics.getDate(), BigDecimal.valueOf(statistics.getTurnover()), statistics.getValidOrderCount(), 0, 0));
+        }
+    }
+
+    @Override
+    public void orderCancelled(Orders ordersDB) {
+        //只有已完成的订单计入了营业额和有效订单数
+        if (!Orders.COMPLETED.equals(ordersDB.getStatus())) {
+            return;
+        }
+        increase(delta(ordersDB.getOrderTime().toLocalDate(), ordersDB.getAmount().negate(), -1, 0, 0));
+    }
+
+    @Override
+    public void userRegistered(User user) {
+        increase(delta(user.getCreateTime().toLocalDate(), BigDecimal.ZERO, 0, 0, 1));
+    }
+
+    @Override
+    public List<DailyStatisticsDTO> listDaily(LocalDate begin, LocalDate end) {
+        //只查询今天时直接读取redis中的实时数据
+        LocalDate today = LocalDate.now();
+        if (begin.equals(today) && end.equals(today)) {
+            DailyStatisticsDTO counter = getCounter(today);
+            if (counter != null) {
+                return List.of(counter);
+            }
+            //redis中没有今天的数据时用数据库中的数据初始化
+            String version = getVersion(today);
+            List<DailyStatisticsDTO> list = loadDaily(begin, end);
+            saveCounter(list.get(0), version);
+            return list;
+        }
+        return loadDaily(begin, end);
+    }
+
+    /**
+     * 从汇总表查询每天的营业数据，没有汇总记录的日期实时统计
+     * @param begin
+     * @param end
+     * @return
+     */
+    private List<DailyStatisticsDTO> loadDaily(LocalDate begin, LocalDate end) {
+        Map<LocalDate, DailyBusinessSummary> summaryMap = dailyBusinessSummaryMapper.list(begin, end).stream()
+                .collect(Collectors.toMap(DailyBusinessSummary::getDate, Function.identity()));
+
+        //没有汇总记录的日期，一次分组查询实时统计
+        LocalDate missingBegin = null;
+        LocalDate missingEnd = null;
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            if (!summaryMap.containsKey(date)) {
+                missingBegin = missingBegin == null ? date : missingBegin;
+                missingEnd = date;
+            }
+        }
+        Map<LocalDate, DailyStatisticsDTO> liveMap = missingBegin == null ? Map.of() : statistics(missingBegin, missingEnd);
+
+        List<DailyStatisticsDTO> list = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            DailyBusinessSummary summary = summaryMap.get(date);
+            DailyStatisticsDTO statistics = summary != null ? DailyStatisticsDTO.builder()
+                    .date(date)
+                    .turnover(summary.getTurnover().doubleValue())
+                    .totalOrderCount(summary.getTotalOrderCount())
+                    .validOrderCount(summary.getValidOrderCount())
+                    .newUsers(summary.getNewUsers())
+                    .build() : liveMap.getOrDefault(date, empty(date));
+            list.add(statistics);
+        }
+        return list;
+    }
+
+    /**
+     * 先锁定当天的汇总行再统计和覆盖：统计期间提交的订单，其累加要等对账事务提交后才能执行，
+     * 锁定之前已经累加的数据包含在统计结果中，覆盖后不会丢失也不会重复
+     * 锁定之后才执行第一次普通查询，统计读取的快照晚于加锁时间
+     * @param date
+     * @param seal
+     */
+    @Override
+    @Transactional
+    public void reconcile(LocalDate date, boolean seal) {
+        String version = getVersion(date);
+        dailyBusinessSummaryMapper.insertIfAbsent(date, LocalDateTime.now());
+        DailyBusinessSummary locked = dailyBusinessSummaryMapper.getByDateForUpdate(date);
+        if (Integer.valueOf(1).equals(locked.getSealed())) {
+            return;
+        }
+        DailyStatisticsDTO statistics = statistics(date, date).getOrDefault(date, empty(date));
+        DailyBusinessSummary summary = DailyBusinessSummary.builder()
+                .date(date)
+                .turnover(BigDecimal.valueOf(statistics.getTurnover()))
+                .validOrderCount(statistics.getValidOrderCount())
+                .totalOrderCount(statistics.getTotalOrderCount())
+                .newUsers(statistics.getNewUsers())
+                .sealed(seal ? 1 : 0)
+                .updateTime(LocalDateTime.now())
+                .build();
+        log.info("营业数据对账:{}", summary);
+        dailyBusinessSummaryMapper.saveOrReplace(summary);
+        if (!date.isBefore(LocalDate.now().minusDays(1))) {
+            TransactionUtil.afterCommit(() -> saveCounter(statistics, version));
+        }
+    }
+
+    /**
+     * 累加数据库中的汇总数据和redis中的实时数据
+     * 在业务事务提交后执行：当天的汇总只有一行，放在下单等事务中累加时行锁要持有到事务提交，所有下单请求都会在这一行上排队；
+     * 业务事务回滚时也不会留下多加的数据
+     * @param delta
+     */
+    private void increase(DailyBusinessSummary delta) {
+        TransactionUtil.afterCommit(() -> {
+            requiresNewTemplate.executeWithoutResult(status -> dailyBusinessSummaryMapper.increase(delta));
+            increaseCounter(delta);
+        });
+    }
+
+    /**
+     * 累加redis中的实时数据
+     * @param delta
+     */
+    private void increaseCounter(DailyBusinessSummary delta) {
+        try {
+            //只在已有的哈希上累加，不存在时由下一次查询或对账初始化，避免只有部分字段的数据；只有版本号的哈希视为不存在
+            stringRedisTemplate.execute(INCREASE_SCRIPT, Collections.singletonList(counterKey(delta.getDate())),
+                    delta.getTurnover().toPlainString(),
+                    String.valueOf(delta.getValidOrderCount()),
+                    String.valueOf(delta.getTotalOrderCount()),
+                    String.valueOf(delta.getNewUsers()),
+                    String.valueOf(TimeUnit.DAYS.toSeconds(COUNTER_TTL_DAYS)));
+        } catch (Exception e) {
+            //redis不可用时不影响业务，下次对账时修正
+            log.warn("累加实时营业数据失败:{}", delta, e);
+        }
+    }
+
+    /**
+     * 读取redis中某天的实时数据
+     * @param date
+     * @return 不存在时返回null
+     */
+    private DailyStatisticsDTO getCounter(LocalDate date) {
+        try {
+            Map<Object, Object> counter = stringRedisTemplate.opsForHash().entries(counterKey(date));
+            if (!counter.keySet().containsAll(List.of(TURNOVER, VALID_ORDER_COUNT, TOTAL_ORDER_COUNT, NEW_USERS))) {
+                return null;
+            }
+            return DailyStatisticsDTO.builder()
+                    .date(date)
+                    .turnover(Double.valueOf(counter.get(TURNOVER).toString()))
+                    .validOrderCount(Integer.valueOf(counter.get(VALID_ORDER_COUNT).toString()))
+                    .totalOrderCount(Integer.valueOf(counter.get(TOTAL_ORDER_COUNT).toString()))
+                    .newUsers(Integer.valueOf(counter.get(NEW_USERS).toString()))
+                    .build();
+        } catch (Exception e) {
+            log.warn("读取实时营业数据失败:{}", date, e);
+            return null;
+        }
+    }
+
+    /**
+     * 读取redis中某天实时数据的版本号，在统计之前读取
+     * @param date
+     * @return 不存在时返回"0"
+     */
+    private String getVersion(LocalDate date) {
+        try {
+            Object version = stringRedisTemplate.opsForHash().get(counterKey(date), VERSION);
+            return version == null ? "0" : version.toString();
+        } catch (Exception e) {
+            log.warn("读取实时营业数据版本号失败:{}", date, e);
+            return "0";
+        }
+    }
+
+    /**
+     * 用统计结果覆盖redis中某天的实时数据，统计期间有累加时(版本号变化)不覆盖，避免丢失这些累加
+     * @param statistics
+     * @param version 统计之前读取的版本号
+     */
+    private void saveCounter(DailyStatisticsDTO statistics, String version) {
+        try {
+            List<String> args = new ArrayList<>();
+            args.add(version);
+            args.add(String.valueOf(TimeUnit.DAYS.toSeconds(COUNTER_TTL_DAYS)));
+            args.add(TURNOVER);
+            args.add(BigDecimal.valueOf(statistics.getTurnover()).toPlainString());
+            args.add(VALID_ORDER_COUNT);
+            args.add(statistics.getValidOrderCount().toString());
+            args.add(TOTAL_ORDER_COUNT);
+            args.add(statistics.getTotalOrderCount().toString());
+            args.add(NEW_USERS);
+            args.add(statistics.getNewUsers().toString());
+            Long saved = stringRedisTemplate.execute(SAVE_SCRIPT, Collections.singletonList(counterKey(statistics.getDate())), args.toArray());
+            if (!Long.valueOf(1).equals(saved)) {
+                log.info("统计期间实时营业数据有变化，本次不覆盖:{}", statistics);
+            }
+        } catch (Exception e) {
+            log.warn("保存实时营业数据失败:{}", statistics, e);
+        }
+    }
+
+    private String counterKey(LocalDate date) {
+        return COUNTER_KEY_PREFIX + date;
+    }
+
+    /**
+     * 根据订单表和用户表按天统计营业数据
+     * @param begin
+     * @param end
+     * @return
+     */
+    private Map<LocalDate, DailyStatisticsDTO> statistics(LocalDate begin, LocalDate end) {
+        LocalDateTime beginTime = LocalDateTime.of(begin, LocalTime.MIN);
+        LocalDateTime endTime = LocalDateTime.of(end, LocalTime.MAX);
+
+        Map<LocalDate, DailyStatisticsDTO> map = orderMapper.getDailyStatistics(beginTime, endTime, Orders.COMPLETED).stream()
+                .collect(Collectors.toMap(DailyStatisticsDTO::getDate, Function.identity()));
+        for (DailyStatisticsDTO users : userMapper.countNewUsersByDate(beginTime, endTime)) {
+            map.computeIfAbsent(users.getDate(), this::empty).setNewUsers(users.getNewUsers());
+        }
+        map.values().forEach(x -> {
+            x.setTurnover(x.getTurnover() == null ? 0.0 : x.getTurnover());
+            x.setTotalOrderCount(x.getTotalOrderCount() == null ? 0 : x.getTotalOrderCount());
+            x.setValidOrderCount(x.getValidOrderCount() == null ? 0 : x.getValidOrderCount());
+            x.setNewUsers(x.getNewUsers() == null ? 0 : x.getNewUsers());
+        });
+        return map;
+    }
+
+    private DailyStatisticsDTO empty(LocalDate date) {
+        return DailyStatisticsDTO.builder()
+                .date(date)
+                .turnover(0.0)
+                .totalOrderCount(0)
+                .validOrderCount(0)
+                .newUsers(0)
+                .build();
+    }
+
+    private DailyBusinessSummary delta(LocalDate date, BigDecimal turnover, int validOrderCount, int totalOrderCount, int newUsers) {
+        return DailyBusinessSummary.builder()
+                .date(date)
+                .turnover(turnover)
+                .validOrderCount(validOrderCount)
+                .totalOrderCount(totalOrderCount)
+                .newUsers(newUsers)
+                .updateTime(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.RequestInProgressException;
+import com.sky.service.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 基于redis的幂等处理，先用SET NX写入处理中标记抢占幂等键，执行完成后用结果覆盖标记
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final String KEY_PREFIX = "idempotency:";
+
+    private static final String PENDING = "PENDING";
+
+    //处理中标记的过期时间，节点在执行期间宕机时标记到期后可以重试
+    //要明显长于事务超时时间(spring.transaction.default-timeout)，避免执行中的请求标记先过期，重试时重复下单
+    private static final long PENDING_TTL_SECONDS = 300;
+
+    //结果的保存时间
+    private static final long RESULT_TTL_HOURS = 24;
+
+    //重复请求等待第一次执行结果的最长时间和轮询间隔
+    private static final long WAIT_MILLIS = 5000;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    @Override
+    public <T> T execute(String key, Supplier<T> action) {
+        String redisKey = KEY_PREFIX + key;
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(redisKey, PENDING, PENDING_TTL_SECONDS, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(acquired)) {
+            log.info("重复请求，返回第一次的结果:{}", key);
+            return waitForResult(redisKey);
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            redisTemplate.delete(redisKey);
+            throw e;
+        }
+        //业务已经提交，保存结果失败时仍然返回结果，不能让客户端重试；处理中标记保留到过期，期间的重试不会重复执行
+        try {
+            redisTemplate.opsForValue().set(redisKey, result, RESULT_TTL_HOURS, TimeUnit.HOURS);
+        } catch (RuntimeException e) {
+            log.error("保存幂等请求结果失败:{}", key, e);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T waitForResult(String redisKey) {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (true) {
+            Object value = redisTemplate.opsForValue().get(redisKey);
+            if (value != null && !PENDING.equals(value)) {
+                return (T) value;
+            }
+            //第一次执行失败后标记被删除，或者等待超时
+            if (value == null || System.currentTimeMillis() >= deadline) {
+                throw new RequestInProgressException(MessageConstant.REQUEST_IN_PROGRESS);
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RequestInProgressException(MessageConstant.REQUEST_IN_PROGRESS);
+            }
+        }
+    }
+}
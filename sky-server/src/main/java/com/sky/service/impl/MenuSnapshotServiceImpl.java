@@ -0,0 +1,133 @@
+package com.sky.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.cache.CacheInvalidationChannel;
+import com.sky.cache.DishCache;
+import com.sky.cache.MenuSnapshot;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.properties.MenuCacheProperties;
+import com.sky.result.Result;
+import com.sky.service.DishService;
+import com.sky.service.MenuSnapshotService;
+import com.sky.service.SetmealService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+public class MenuSnapshotServiceImpl implements MenuSnapshotService {
+
+    public static final String SETMEAL_CACHE_NAME = "setMealCache";
+
+    private static final String DISH_PREFIX = "dish_";
+    private static final String SETMEAL_PREFIX = "setmeal_";
+    private static final String SETMEAL_DISH_PREFIX = "setmeal_dish_";
+
+    //与mvc消息转换器使用同一个对象映射器，保证快照和普通接口返回的json一致
+    private final JacksonObjectMapper objectMapper = new JacksonObjectMapper();
+
+    @Autowired
+    private DishCache dishCache;
+    @Autowired
+    private DishService dishService;
+    @Autowired
+    private SetmealService setmealService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MenuCacheProperties menuCacheProperties;
+    @Autowired
+    private CacheInvalidationChannel cacheInvalidationChannel;
+
+    //本地快照缓存：类型前缀+id -> 快照
+    private Cache<String, MenuSnapshot> snapshots;
+
+    //快照缓存每清理一次加1，构建期间被清理过的快照不再保留
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        snapshots = Caffeine.newBuilder()
+                .maximumSize(menuCacheProperties.getLocalMaximumSize())
+                .expireAfterWrite(Duration.ofSeconds(menuCacheProperties.getLocalTtl()))
+                .build();
+        //先创建套餐缓存，保证收到失效消息时先清理套餐的本地缓存，再清理快照
+        cacheManager.getCache(SETMEAL_CACHE_NAME);
+        //套餐包含的菜品数据同时取决于菜品和套餐
+        cacheInvalidationChannel.register(DishCache.CACHE_NAME, () -> {
+            invalidate(DISH_PREFIX);
+            invalidate(SETMEAL_DISH_PREFIX);
+        });
+        cacheInvalidationChannel.register(SETMEAL_CACHE_NAME, () -> {
+            invalidate(SETMEAL_PREFIX);
+            invalidate(SETMEAL_DISH_PREFIX);
+        });
+    }
+
+    @Override
+    public MenuSnapshot getDishSnapshot(Long categoryId) {
+        return get(DISH_PREFIX + categoryId, () -> {
+            Dish dish = new Dish();
+            dish.setCategoryId(categoryId);
+            dish.setStatus(StatusConstant.ENABLE);//查询起售中的菜品
+            return Result.success(dishCache.get(categoryId, () -> dishService.listWithFlavor(dish)));
+        });
+    }
+
+    @Override
+    public MenuSnapshot getSetmealSnapshot(Long categoryId) {
+        return get(SETMEAL_PREFIX + categoryId, () ->
+                cacheManager.getCache(SETMEAL_CACHE_NAME).get(categoryId, () -> {
+                    Setmeal setmeal = new Setmeal();
+                    setmeal.setCategoryId(categoryId);
+                    setmeal.setStatus(StatusConstant.ENABLE);
+                    return Result.success(setmealService.list(setmeal));
+                }));
+    }
+
+    @Override
+    public MenuSnapshot getSetmealDishSnapshot(Long setmealId) {
+        return get(SETMEAL_DISH_PREFIX + setmealId, () -> Result.success(setmealService.getDishItemById(setmealId)));
+    }
+
+    /**
+     * 查询快照，未命中时构建，同一个key同时只构建一次
+     * @param key
+     * @param supplier
+     * @return
+     */
+    private MenuSnapshot get(String key, Supplier<Object> supplier) {
+        long start = generation.get();
+        MenuSnapshot snapshot = snapshots.get(key, k -> build(supplier));
+        //构建期间收到了失效消息，快照可能基于修改前的数据，本次返回后从缓存中移除
+        if (start != generation.get()) {
+            snapshots.asMap().remove(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    private MenuSnapshot build(Supplier<Object> supplier) {
+        try {
+            return new MenuSnapshot(objectMapper.writeValueAsBytes(supplier.get()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("菜单快照序列化失败", e);
+        }
+    }
+
+    private void invalidate(String prefix) {
+        generation.incrementAndGet();
+        snapshots.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+}
@@ -13,14 +13,22 @@ import com.sky.exception.AddressBookBusinessException;
 import com.sky.exception.OrderBusinessException;
 import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.mapper.*;
+import com.sky.order.OrderStateMachine;
+import com.sky.order.OrderStatusCounter;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
+import com.sky.service.BusinessSummaryService;
 import com.sky.service.OrderService;
+import com.sky.service.ShopStatusService;
+import com.sky.task.OrderTimeoutQueue;
+import com.sky.utils.SnowflakeIdGenerator;
 import com.sky.utils.WeChatPayUtil;
+import com.sky.vo.OrderBatchResultVO;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
-import com.sky.websocket.WebSocketServer;
+import com.sky.websocket.OrderNotifier;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.weaver.ast.Or;
 import org.springframework.beans.BeanUtils;
@@ -29,17 +37,29 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class OrderServiceImpl implements OrderService {
 
+    //批量操作每批处理的订单数
+    private static final int BATCH_SIZE = 500;
+
+    //游标分页的默认和最大每页记录数
+    private static final int DEFAULT_CURSOR_PAGE_SIZE = 10;
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     @Autowired
     private OrderMapper orderMapper;
     @Autowired
@@ -53,11 +73,27 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private WeChatPayUtil weChatPayUtil;
     @Autowired
-    private WebSocketServer webSocketServer;
+    private OrderNotifier orderNotifier;
+    @Autowired
+    private BusinessSummaryService businessSummaryService;
+    @Autowired
+    private ShopStatusService shopStatusService;
+    @Autowired
+    private OrderTimeoutQueue orderTimeoutQueue;
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
     @Override
     @Transactional
     public OrderSubmitVO submitOrder(OrdersSubmitDTO ordersSubmitDTO) {
 
+        //店铺打烊时不接单，读取的是本地状态，不访问redis
+        if (!shopStatusService.isOpen()) {
+            throw new OrderBusinessException(MessageConstant.SHOP_CLOSED);
+        }
         //处理各种业务异常(地址、购物车为空)
         AddressBook addressBook = addressBookMapper.getById(ordersSubmitDTO.getAddressBookId());
         if(addressBook==null){
@@ -78,7 +114,7 @@ public class OrderServiceImpl implements OrderService {
         orders.setOrderTime(LocalDateTime.now());
         orders.setPayStatus((Orders.UN_PAID));
         orders.setStatus(Orders.PENDING_PAYMENT);
-        orders.setNumber(String.valueOf(System.currentTimeMillis()));
+        orders.setNumber(snowflakeIdGenerator.nextIdStr());
         orders.setPhone(addressBook.getPhone());
         orders.setConsignee(addressBook.getConsignee());
         orders.setAddress(addressBook.getAddressDetail());
@@ -96,6 +132,11 @@ public class OrderServiceImpl implements OrderService {
         orderDetailMapper.insertBatch(orderDetailList);
         //清空当前用户的购物车数据
         shoppingCartMapper.deleteByUserId(userId);
+        //累加当天的订单总数和待付款订单数
+        businessSummaryService.orderSubmitted(orders);
+        orderStatusCounter.created(orders.getStatus());
+        //超时未支付时自动取消
+        orderTimeoutQueue.schedule(orders.getId(), orders.getOrderTime());
         //封装VO返回结果
         OrderSubmitVO orderSubmitVO = OrderSubmitVO.builder()
                 .id(orders.getId())
@@ -128,32 +169,25 @@ public class OrderServiceImpl implements OrderService {
         jsonObject.put("code", "ORDERPAID");
         OrderPaymentVO vo = jsonObject.toJavaObject(OrderPaymentVO.class);
         vo.setPackageStr(jsonObject.getString("package"));
-        Integer OrderPaidStatus = Orders.PAID;
-        Integer OrderStatus = Orders.TO_BE_CONFIRMED;
-        LocalDateTime check_out_time = LocalDateTime.now();
         String orderNumber = ordersPaymentDTO.getOrderNumber();
-        log.info("调用updateStatus，用于替换微信支付更新数据库状态的问题");
-        orderMapper.updateStatus(OrderStatus, OrderPaidStatus, check_out_time, orderNumber);
-
         Orders ordersDB = orderMapper.getByNumber(orderNumber);
+        if (ordersDB == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
 
-        // 根据订单id更新订单的状态、支付方式、支付状态、结账时间
+        // 根据订单id更新订单的状态、支付状态、结账时间，只有待付款的订单可以支付(已超时取消的订单不能再支付)
         Orders orders = Orders.builder()
-                .id(ordersDB.getId())
-                .status(Orders.TO_BE_CONFIRMED)
                 .payStatus(Orders.PAID)
                 .checkoutTime(LocalDateTime.now())
                 .build();
-
-
-
-        orderMapper.update(orders);
-        Map map = new HashMap();
+        if (!orderStateMachine.transition(ordersDB.getId(), Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED, orders)) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+        Map<String, Object> map = new HashMap<>();
         map.put("type", 1);
         map.put("orderId", ordersDB.getId());
         map.put("content", "订单号:" + orderNumber);
-        String json = JSON.toJSONString(map);
-        webSocketServer.sendToAllClient(json);
+        orderNotifier.publish(map);
         return vo;
 
 
@@ -201,17 +235,13 @@ public class OrderServiceImpl implements OrderService {
 
         List<OrderVO> list = new ArrayList();
 
-        // 查询出订单明细，并封装入OrderVO进行响应
+        // 一次查询出本页所有订单的明细，并封装入OrderVO进行响应
         if (page != null && page.getTotal() > 0) {
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(page);
             for (Orders orders : page) {
-                Long orderId = orders.getId();// 订单id
-
-                // 查询订单明细
-                List<OrderDetail> orderDetails = orderDetailMapper.getByOrderId(orderId);
-
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
-                orderVO.setOrderDetailList(orderDetails);
+                orderVO.setOrderDetailList(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
 
                 list.add(orderVO);
             }
@@ -219,6 +249,28 @@ public class OrderServiceImpl implements OrderService {
         return new PageResult(page.getTotal(), list);
     }
 
+    @Override
+    public CursorPageResult cursorQuery(String cursor, int pageSize, Integer status) {
+        OrdersPageQueryDTO ordersPageQueryDTO = new OrdersPageQueryDTO();
+        ordersPageQueryDTO.setUserId(BaseContext.getCurrentId());
+        ordersPageQueryDTO.setStatus(status);
+        ordersPageQueryDTO.setCursor(cursor);
+        ordersPageQueryDTO.setPageSize(pageSize);
+
+        return cursorPage(ordersPageQueryDTO, ordersList -> {
+            // 一次查询出本页所有订单的明细，并封装入OrderVO进行响应
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
+            List<OrderVO> list = new ArrayList<>();
+            for (Orders orders : ordersList) {
+                OrderVO orderVO = new OrderVO();
+                BeanUtils.copyProperties(orders, orderVO);
+                orderVO.setOrderDetailList(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
+                list.add(orderVO);
+            }
+            return list;
+        });
+    }
+
     @Override
     public OrderVO details(Long id) {
         OrderVO orderVO = new OrderVO();
@@ -243,7 +295,6 @@ public class OrderServiceImpl implements OrderService {
         }
 
         Orders orders = new Orders();
-        orders.setId(orderDB.getId());
 
         if (orderDB.getStatus().equals(Orders.TO_BE_CONFIRMED)) {
            /* weChatPayUtil.refund(
@@ -253,10 +304,12 @@ public class OrderServiceImpl implements OrderService {
                     new BigDecimal(0.01));*/
             orders.setPayStatus(Orders.REFUND);
         }
-        orders.setStatus(Orders.CANCELLED);
         orders.setCancelReason("用户取消");
         orders.setCancelTime(LocalDateTime.now());
-        orderMapper.update(orders);
+        //查询之后订单状态被修改(例如商家已接单)时取消失败
+        if (!orderStateMachine.transition(orderDB.getId(), orderDB.getStatus(), Orders.CANCELLED, orders)) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
     }
 
     @Override
@@ -294,12 +347,63 @@ public class OrderServiceImpl implements OrderService {
         return new PageResult(page.getTotal(), orderVOList);
     }
 
+    @Override
+    public CursorPageResult conditionSearchByCursor(OrdersPageQueryDTO ordersPageQueryDTO) {
+        return cursorPage(ordersPageQueryDTO, this::getOrderVOList);
+    }
+
+    /**
+     * 按(下单时间, id)倒序游标分页，不执行count查询，翻到多深的页都只扫描pageSize+1条记录
+     * @param ordersPageQueryDTO
+     * @param converter 将本页订单转换为响应数据
+     * @return
+     */
+    private CursorPageResult cursorPage(OrdersPageQueryDTO ordersPageQueryDTO, Function<List<Orders>, List<OrderVO>> converter) {
+        if (ordersPageQueryDTO.getPageSize() <= 0 || ordersPageQueryDTO.getPageSize() > MAX_CURSOR_PAGE_SIZE) {
+            ordersPageQueryDTO.setPageSize(DEFAULT_CURSOR_PAGE_SIZE);
+        }
+        decodeCursor(ordersPageQueryDTO);
+
+        List<Orders> ordersList = orderMapper.cursorQuery(ordersPageQueryDTO);
+        boolean hasMore = ordersList.size() > ordersPageQueryDTO.getPageSize();
+        if (hasMore) {
+            ordersList = ordersList.subList(0, ordersPageQueryDTO.getPageSize());
+        }
+        String nextCursor = hasMore ? encodeCursor(ordersList.get(ordersList.size() - 1)) : null;
+        return new CursorPageResult(converter.apply(ordersList), nextCursor, hasMore);
+    }
+
+    /**
+     * 游标格式为 下单时间_订单id 的base64编码
+     * @param orders
+     * @return
+     */
+    private String encodeCursor(Orders orders) {
+        String cursor = orders.getOrderTime() + "_" + orders.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void decodeCursor(OrdersPageQueryDTO ordersPageQueryDTO) {
+        String cursor = ordersPageQueryDTO.getCursor();
+        if (cursor == null || cursor.isEmpty()) {
+            return;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_");
+            ordersPageQueryDTO.setCursorOrderTime(LocalDateTime.parse(parts[0]));
+            ordersPageQueryDTO.setCursorId(Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new OrderBusinessException(MessageConstant.INVALID_CURSOR);
+        }
+    }
+
     @Override
     public OrderStatisticsVO statistics() {
-        // 根据状态，分别查询出待接单、待派送、派送中的订单数量
-        Integer toBeConfirmed = orderMapper.countStatus(Orders.TO_BE_CONFIRMED);
-        Integer confirmed = orderMapper.countStatus(Orders.CONFIRMED);
-        Integer deliveryInProgress = orderMapper.countStatus(Orders.DELIVERY_IN_PROGRESS);
+        // 待接单、待派送、派送中的订单数量，直接读取实时计数，不查询订单表
+        Map<Integer, Integer> counts = orderStatusCounter.getAll();
+        Integer toBeConfirmed = counts.get(Orders.TO_BE_CONFIRMED);
+        Integer confirmed = counts.get(Orders.CONFIRMED);
+        Integer deliveryInProgress = counts.get(Orders.DELIVERY_IN_PROGRESS);
 
         // 将查询出的数据封装到orderStatisticsVO中响应
         OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO();
@@ -311,15 +415,14 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public void confirm(OrdersConfirmDTO ordersConfirmDTO) {
-        Orders orders = Orders.builder()
-                .id(ordersConfirmDTO.getId())
-                .status(Orders.CONFIRMED)
-                .build();
-
-        orderMapper.update(orders);
+        // 只有待接单的订单可以接单
+        if (!orderStateMachine.transition(ordersConfirmDTO.getId(), Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, null)) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
     }
 
     @Override
+    @Transactional
     public void rejection(OrdersRejectionDTO ordersRejectionDTO) throws  Exception {
 
         Orders ordersDB = orderMapper.getById(ordersRejectionDTO.getId());
@@ -329,86 +432,81 @@ public class OrderServiceImpl implements OrderService {
             throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
         }
 
+        // 拒单需要退款，根据订单id更新订单状态、拒单原因、取消时间
+        Orders orders = new Orders();
+        orders.setRejectionReason(ordersRejectionDTO.getRejectionReason());
+        orders.setCancelTime(LocalDateTime.now());
+        // 先更新状态再退款，并发拒单时只有一个请求会退款
+        if (!orderStateMachine.transition(ordersDB.getId(), Orders.TO_BE_CONFIRMED, Orders.CANCELLED, orders)) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+
         //支付状态
         Integer payStatus = ordersDB.getPayStatus();
         if (payStatus == Orders.PAID) {
             //用户已支付，需要退款
             String refund = weChatPayUtil.refund(
                     ordersDB.getNumber(),
-                    ordersDB.getNumber(),
+                    snowflakeIdGenerator.nextIdStr(),
                     new BigDecimal(0.01),
                     new BigDecimal(0.01));
             log.info("申请退款：{}", refund);
         }
-
-        // 拒单需要退款，根据订单id更新订单状态、拒单原因、取消时间
-        Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
-        orders.setStatus(Orders.CANCELLED);
-        orders.setRejectionReason(ordersRejectionDTO.getRejectionReason());
-        orders.setCancelTime(LocalDateTime.now());
-
-        orderMapper.update(orders);
     }
 
     @Override
+    @Transactional
     public void cancel(OrdersCancelDTO ordersCancelDTO) throws Exception {
         Orders ordersDB = orderMapper.getById(ordersCancelDTO.getId());
 
+        if (ordersDB == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+        if (!orderStateMachine.canTransition(ordersDB.getStatus(), Orders.CANCELLED)) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+
+        // 管理端取消订单需要退款，根据订单id更新订单状态、取消原因、取消时间
+        Orders orders = new Orders();
+        orders.setCancelReason(ordersCancelDTO.getCancelReason());
+        orders.setCancelTime(LocalDateTime.now());
+        if (!orderStateMachine.transition(ordersDB.getId(), ordersDB.getStatus(), Orders.CANCELLED, orders)) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+
         //支付状态
         Integer payStatus = ordersDB.getPayStatus();
         if (payStatus == 1) {
             //用户已支付，需要退款
             String refund = weChatPayUtil.refund(
                     ordersDB.getNumber(),
-                    ordersDB.getNumber(),
+                    snowflakeIdGenerator.nextIdStr(),
                     new BigDecimal(0.01),
                     new BigDecimal(0.01));
             log.info("申请退款：{}", refund);
         }
 
-        // 管理端取消订单需要退款，根据订单id更新订单状态、取消原因、取消时间
-        Orders orders = new Orders();
-        orders.setId(ordersCancelDTO.getId());
-        orders.setStatus(Orders.CANCELLED);
-        orders.setCancelReason(ordersCancelDTO.getCancelReason());
-        orders.setCancelTime(LocalDateTime.now());
-        orderMapper.update(orders);
+        businessSummaryService.orderCancelled(ordersDB);
     }
 
     @Override
     public void delivery(Long id) {
-        Orders ordersDB = orderMapper.getById(id);
-
-        // 校验订单是否存在，并且状态为3
-        if (ordersDB == null || !ordersDB.getStatus().equals(Orders.CONFIRMED)) {
+        // 只有已接单的订单可以派送，更新订单状态,状态转为派送中
+        if (!orderStateMachine.transition(id, Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS, null)) {
             throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
         }
-
-        Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
-        // 更新订单状态,状态转为派送中
-        orders.setStatus(Orders.DELIVERY_IN_PROGRESS);
-
-        orderMapper.update(orders);
     }
 
     @Override
     public void complete(Long id) {
-        Orders ordersDB = orderMapper.getById(id);
-
-        // 校验订单是否存在，并且状态为4
-        if (ordersDB == null || !ordersDB.getStatus().equals(Orders.DELIVERY_IN_PROGRESS)) {
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-
+        // 只有派送中的订单可以完成，更新订单状态,状态转为完成
         Orders orders = new Orders();
-        orders.setId(ordersDB.getId());
-        // 更新订单状态,状态转为完成
-        orders.setStatus(Orders.COMPLETED);
         orders.setDeliveryTime(LocalDateTime.now());
+        if (!orderStateMachine.transition(id, Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, orders)) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
 
-        orderMapper.update(orders);
+        businessSummaryService.orderCompleted(List.of(id));
     }
 
     @Override
@@ -419,26 +517,128 @@ public class OrderServiceImpl implements OrderService {
             throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
         }
 
-        Map map = new HashMap();
+        Map<String, Object> map = new HashMap<>();
         map.put("type", 2);
         map.put("orderId", id);
         map.put("content", "订单号:" + ordersDB.getNumber());
-        String json = JSON.toJSONString(map);
 
-        webSocketServer.sendToAllClient(json);
+        orderNotifier.publish(map);
+    }
+
+    @Override
+    @Transactional
+    public OrderBatchResultVO batchConfirm(List<Long> ids) {
+        List<Long> succeeded = batchTransition(ids, Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, null).stream()
+                .map(Orders::getId).collect(Collectors.toList());
+        return batchResult(ids, succeeded, "接单");
+    }
+
+    @Override
+    @Transactional
+    public OrderBatchResultVO batchRejection(OrdersBatchDTO ordersBatchDTO) throws Exception {
+        Orders orders = new Orders();
+        orders.setRejectionReason(ordersBatchDTO.getRejectionReason());
+        orders.setCancelTime(LocalDateTime.now());
+        List<Orders> rejected = batchTransition(ordersBatchDTO.getIds(), Orders.TO_BE_CONFIRMED, Orders.CANCELLED, orders);
+
+        //已支付的订单需要退款
+        for (Orders ordersDB : rejected) {
+            if (Orders.PAID.equals(ordersDB.getPayStatus())) {
+                String refund = weChatPayUtil.refund(
+                        ordersDB.getNumber(),
+                        snowflakeIdGenerator.nextIdStr(),
+                        new BigDecimal(0.01),
+                        new BigDecimal(0.01));
+                log.info("申请退款：{}", refund);
+            }
+        }
+        return batchResult(ordersBatchDTO.getIds(), rejected.stream().map(Orders::getId).collect(Collectors.toList()), "拒单");
+    }
+
+    @Override
+    @Transactional
+    public OrderBatchResultVO batchDelivery(List<Long> ids) {
+        List<Long> succeeded = batchTransition(ids, Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS, null).stream()
+                .map(Orders::getId).collect(Collectors.toList());
+        return batchResult(ids, succeeded, "派送");
+    }
+
+    @Override
+    @Transactional
+    public OrderBatchResultVO batchComplete(List<Long> ids) {
+        Orders orders = new Orders();
+        orders.setDeliveryTime(LocalDateTime.now());
+        List<Long> succeeded = batchTransition(ids, Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, orders).stream()
+                .map(Orders::getId).collect(Collectors.toList());
+        businessSummaryService.orderCompleted(succeeded);
+        return batchResult(ids, succeeded, "完成");
     }
 
-    private List<OrderVO> getOrderVOList(Page<Orders> page) {
+    /**
+     * 分批锁定仍处于from状态的订单并流转到to状态，需要在事务中调用
+     * @param ids
+     * @param from
+     * @param to
+     * @param changes 同时更新的其他字段
+     * @return 流转成功的订单
+     */
+    private List<Orders> batchTransition(List<Long> ids, Integer from, Integer to, Orders changes) {
+        List<Orders> locked = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) {
+            return locked;
+        }
+        List<Long> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        for (int i = 0; i < distinctIds.size(); i += BATCH_SIZE) {
+            List<Long> chunk = distinctIds.subList(i, Math.min(i + BATCH_SIZE, distinctIds.size()));
+            //先锁定符合状态的订单，锁定的订单在事务结束前不会被其他请求修改，条件更新一定成功
+            List<Orders> chunkLocked = orderMapper.getByIdsAndStatusForUpdate(chunk, from);
+            orderStateMachine.transition(chunkLocked.stream().map(Orders::getId).collect(Collectors.toList()), from, to, changes);
+            locked.addAll(chunkLocked);
+        }
+        return locked;
+    }
+
+    /**
+     * 封装批量操作结果，并通知管理端刷新订单列表
+     * @param ids
+     * @param succeeded
+     * @param action
+     * @return
+     */
+    private OrderBatchResultVO batchResult(List<Long> ids, List<Long> succeeded, String action) {
+        Set<Long> succeededSet = new HashSet<>(succeeded);
+        List<Long> failed = ids == null ? new ArrayList<>() : ids.stream()
+                .filter(id -> !succeededSet.contains(id))
+                .distinct()
+                .collect(Collectors.toList());
+        log.info("批量{}:成功{}个，失败{}个", action, succeeded.size(), failed.size());
+
+        if (!succeeded.isEmpty()) {
+            //整批只推送一条消息
+            Map<String, Object> map = new HashMap<>();
+            map.put("type", 3);
+            map.put("orderIds", succeeded);
+            map.put("content", "批量" + action + succeeded.size() + "个订单");
+            orderNotifier.publish(map);
+        }
+        return OrderBatchResultVO.builder()
+                .succeeded(succeeded)
+                .failed(failed)
+                .build();
+    }
+
+    private List<OrderVO> getOrderVOList(List<Orders> ordersList) {
         // 需要返回订单菜品信息，自定义OrderVO响应结果
         List<OrderVO> orderVOList = new ArrayList<>();
 
-        List<Orders> ordersList = page.getResult();
         if (!CollectionUtils.isEmpty(ordersList)) {
+            // 一次查询出本页所有订单的明细
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
             for (Orders orders : ordersList) {
                 // 将共同字段复制到OrderVO
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
-                String orderDishes = getOrderDishesStr(orders);
+                String orderDishes = getOrderDishesStr(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
 
                 // 将订单菜品信息封装到orderVO中，并添加到orderVOList
                 orderVO.setOrderDishes(orderDishes);
@@ -448,11 +648,21 @@ public class OrderServiceImpl implements OrderService {
         return orderVOList;
     }
 
+    /**
+     * 批量查询订单明细，并按订单id分组
+     * @param ordersList
+     * @return
+     */
+    private Map<Long, List<OrderDetail>> getOrderDetailMap(List<Orders> ordersList) {
+        if (ordersList.isEmpty()) {
+            return new HashMap<>();
+        }
+        List<Long> orderIds = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+        return orderDetailMapper.getByOrderIds(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
+    }
 
-    private String getOrderDishesStr(Orders orders) {
-        // 查询订单菜品详情信息（订单中的菜品和数量）
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
-
+    private String getOrderDishesStr(List<OrderDetail> orderDetailList) {
         // 将每一条订单菜品信息拼接为字符串（格式：宫保鸡丁*3；）
         List<String> orderDishList = orderDetailList.stream().map(x -> {
             String orderDish = x.getName() + "*" + x.getNumber() + ";";
@@ -1,17 +1,23 @@
 package com.sky.service.impl;
 
+import com.sky.constant.MessageConstant;
+import com.sky.dto.DailyStatisticsDTO;
 import com.sky.dto.GoodsSalesDTO;
-import com.sky.entity.Orders;
+import com.sky.exception.ReportBusinessException;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessSummaryService;
 import com.sky.service.ReportService;
-import com.sky.service.WorkspaceService;
 import com.sky.vo.*;
 import io.swagger.v3.oas.models.security.SecurityScheme;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -23,6 +29,7 @@ import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -33,34 +40,30 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ReportServiceImpl implements ReportService {
 
+    //模板中明细数据的起始行
+    private static final int DETAIL_ROW_START = 7;
+    //导出时内存中保留的行数
+    private static final int ROW_ACCESS_WINDOW = 100;
+    //一次最多导出的天数，没有汇总记录的日期要实时统计订单表，范围过大时扫描的订单过多
+    private static final long MAX_EXPORT_DAYS = 366;
+
     @Autowired
     private OrderMapper orderMapper;
     @Autowired
     private UserMapper userMapper;
     @Autowired
-    private WorkspaceService workspaceService;
+    private BusinessSummaryService businessSummaryService;
 
     @Override
     public TurnoverReportVO getTurnoverStatistics(LocalDate begin, LocalDate end) {
 
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
+        List<LocalDate> dateList = getDateList(begin, end);
+        //一次查询出整个区间每天的营业额
+        Map<LocalDate, DailyStatisticsDTO> statisticsMap = getStatisticsMap(begin, end);
 
         List<Double> turnOverList = new ArrayList<>();
         for (LocalDate date : dateList) {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            Map map = new HashMap();
-            map.put("begin", beginTime);
-            map.put("end", endTime);
-            map.put("status", Orders.COMPLETED);
-            Double turnOver=orderMapper.sumByMap(map);
-            turnOver = turnOver == null ? 0.0 : turnOver;
-            turnOverList.add(turnOver);
+            turnOverList.add(statisticsMap.get(date).getTurnover());
         }
 
         return TurnoverReportVO.builder()
@@ -71,26 +74,22 @@ public class ReportServiceImpl implements ReportService {
 
     @Override
     public UserReportVO getUserStatistics(LocalDate begin, LocalDate end) {
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
+        List<LocalDate> dateList = getDateList(begin, end);
+
+        //区间开始前的用户总数
+        Map map = new HashMap();
+        map.put("end", LocalDateTime.of(begin, LocalTime.MIN));
+        Integer totalUser = userMapper.countByMap(map);
+
+        //一次查询出整个区间每天的新增用户数
+        Map<LocalDate, DailyStatisticsDTO> statisticsMap = getStatisticsMap(begin, end);
 
         List<Integer> newUserList = new ArrayList<>();
         List<Integer> totalUserList = new ArrayList<>();
 
         for (LocalDate date : dateList) {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            Map map = new HashMap();
-            map.put("end", endTime);
-            Integer totalUser = userMapper.countByMap(map);
-
-            map.put("begin", beginTime);
-            Integer newUser = userMapper.countByMap(map);
+            Integer newUser = statisticsMap.get(date).getNewUsers();
+            totalUser += newUser;
 
             totalUserList.add(totalUser);
             newUserList.add(newUser);
@@ -104,21 +103,16 @@ public class ReportServiceImpl implements ReportService {
 
     @Override
     public OrderReportVO getOrderStatistics(LocalDate begin, LocalDate end) {
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
+        List<LocalDate> dateList = getDateList(begin, end);
+        //一次查询出整个区间每天的订单数
+        Map<LocalDate, DailyStatisticsDTO> statisticsMap = getStatisticsMap(begin, end);
+
         List<Integer> orderCountList = new ArrayList<>();
         List<Integer> validOrderCountList = new ArrayList<>();
         for (LocalDate date : dateList) {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            Integer orderCount = getOrderCount(beginTime, endTime, null);
-            Integer validOrderCount = getOrderCount(beginTime, endTime, Orders.COMPLETED);
-            orderCountList.add(orderCount);
-            validOrderCountList.add(validOrderCount);
+            DailyStatisticsDTO statistics = statisticsMap.get(date);
+            orderCountList.add(statistics.getTotalOrderCount());
+            validOrderCountList.add(statistics.getValidOrderCount());
         }
         Integer totalOrderCount = orderCountList.stream().reduce(Integer::sum).get();
         Integer validOrderCount = validOrderCountList.stream().reduce(Integer::sum).get();
@@ -136,14 +130,31 @@ public class ReportServiceImpl implements ReportService {
                 .build();
     }
 
+    /**
+     * 生成[begin, end]区间内的日期列表
+     * @param begin
+     * @param end
+     * @return
+     */
+    private List<LocalDate> getDateList(LocalDate begin, LocalDate end) {
+        List<LocalDate> dateList = new ArrayList<>();
+        dateList.add(begin);
+        while (!begin.equals(end)) {
+            begin = begin.plusDays(1);
+            dateList.add(begin);
+        }
+        return dateList;
+    }
 
-
-    private Integer getOrderCount(LocalDateTime begin, LocalDateTime end, Integer status) {
-        Map map = new HashMap();
-        map.put("begin", begin);
-        map.put("end", end);
-        map.put("status", status);
-        return orderMapper.countByMap(map);
+    /**
+     * 查询区间内每天的营业数据，优先读取每日汇总表
+     * @param begin
+     * @param end
+     * @return
+     */
+    private Map<LocalDate, DailyStatisticsDTO> getStatisticsMap(LocalDate begin, LocalDate end) {
+        List<DailyStatisticsDTO> list = businessSummaryService.listDaily(begin, end);
+        return list.stream().collect(Collectors.toMap(DailyStatisticsDTO::getDate, x -> x));
     }
 
     @Override
@@ -161,43 +172,74 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    public void exportBusinessData(HttpServletResponse response) {
-        //1.查询数据库，获取营业数据--查询最近30天运营数据
-        LocalDate dateBegin = LocalDate.now().minusDays(30);
-        LocalDate dateEnd = LocalDate.now().minusDays(1);
-        BusinessDataVO businessDataVO = workspaceService.getBusinessData(LocalDateTime.of(dateBegin, LocalTime.MIN), LocalDateTime.of(dateEnd, LocalTime.MAX));
+    public void exportBusinessData(LocalDate begin, LocalDate end, HttpServletResponse response) {
+        if (begin.isAfter(end)) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_INVALID);
+        }
+        if (ChronoUnit.DAYS.between(begin, end) + 1 > MAX_EXPORT_DAYS) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_TOO_LONG);
+        }
+        //1.查询数据库，一次查询出区间内每天的营业数据
+        List<DailyStatisticsDTO> dailyList = businessSummaryService.listDaily(begin, end);
+        double turnover = dailyList.stream().mapToDouble(DailyStatisticsDTO::getTurnover).sum();
+        int validOrderCount = dailyList.stream().mapToInt(DailyStatisticsDTO::getValidOrderCount).sum();
+        int totalOrderCount = dailyList.stream().mapToInt(DailyStatisticsDTO::getTotalOrderCount).sum();
+        int newUsers = dailyList.stream().mapToInt(DailyStatisticsDTO::getNewUsers).sum();
         //2.通过POI写入Excel文件
         InputStream in=this.getClass().getClassLoader().getResourceAsStream("template/运营数据报表模板.xlsx");
+        SXSSFWorkbook excel = null;
         try {
             //基于模板文件创建一个新Excel文件
-            XSSFWorkbook excel = new XSSFWorkbook(in);
+            XSSFWorkbook template = new XSSFWorkbook(in);
             //获取sheet
-            XSSFSheet sheet = excel.getSheet("Sheet1");
+            XSSFSheet sheet = template.getSheet("Sheet1");
             //填充数据--时间
-            sheet.getRow(1).getCell(1).setCellValue("时间： "+dateBegin+"至"+dateEnd);
+            sheet.getRow(1).getCell(1).setCellValue("时间： "+begin+"至"+end);
             //获得第4行
             XSSFRow row = sheet.getRow(3);
-            row.getCell(2).setCellValue(businessDataVO.getTurnover());
-            row.getCell(4).setCellValue(businessDataVO.getOrderCompletionRate());
-            row.getCell(6).setCellValue(businessDataVO.getNewUsers());
+            row.getCell(2).setCellValue(turnover);
+            row.getCell(4).setCellValue(completionRate(validOrderCount, totalOrderCount));
+            row.getCell(6).setCellValue(newUsers);
             //获得第5行
             row = sheet.getRow(4);
-            row.getCell(2).setCellValue(businessDataVO.getValidOrderCount());
-            row.getCell(4).setCellValue(businessDataVO.getUnitPrice());
-            //查询明细数据
-            for (int i = 0; i < 30; i++) {
-                LocalDate date = dateBegin.plusDays(i);
-                //查询某天的数据
-                BusinessDataVO businessData = workspaceService.getBusinessData(LocalDateTime.of(date, LocalTime.MIN), LocalDateTime.of(date, LocalTime.MAX));
-                row = sheet.getRow(7 + i);
-                row.getCell(1).setCellValue(date.toString());
-                row.getCell(2).setCellValue(businessData.getTurnover());
-                row.getCell(3).setCellValue(businessData.getValidOrderCount());
-                row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
-                row.getCell(5).setCellValue(businessData.getUnitPrice());
-                row.getCell(6).setCellValue(businessData.getNewUsers());
+            row.getCell(2).setCellValue(validOrderCount);
+            row.getCell(4).setCellValue(unitPrice(turnover, validOrderCount));
+
+            //记录模板明细行的样式，删除预置的明细行，改为流式写入任意天数的明细
+            XSSFRow styleRow = sheet.getRow(DETAIL_ROW_START);
+            short rowHeight = styleRow.getHeight();
+            CellStyle[] styles = new CellStyle[styleRow.getLastCellNum()];
+            for (int i = 0; i < styles.length; i++) {
+                styles[i] = styleRow.getCell(i) == null ? null : styleRow.getCell(i).getCellStyle();
+            }
+            for (int i = sheet.getLastRowNum(); i >= DETAIL_ROW_START; i--) {
+                if (sheet.getRow(i) != null) {
+                    sheet.removeRow(sheet.getRow(i));
+                }
+            }
+
+            //内存中最多保留ROW_ACCESS_WINDOW行，其余行刷写到临时文件
+            excel = new SXSSFWorkbook(template, ROW_ACCESS_WINDOW);
+            excel.setCompressTempFiles(true);
+            Sheet detailSheet = excel.getSheet("Sheet1");
+            for (int i = 0; i < dailyList.size(); i++) {
+                DailyStatisticsDTO businessData = dailyList.get(i);
+                Row detailRow = detailSheet.createRow(DETAIL_ROW_START + i);
+                detailRow.setHeight(rowHeight);
+                for (int j = 0; j < styles.length; j++) {
+                    if (styles[j] != null) {
+                        detailRow.createCell(j).setCellStyle(styles[j]);
+                    }
+                }
+                detailRow.getCell(1).setCellValue(businessData.getDate().toString());
+                detailRow.getCell(2).setCellValue(businessData.getTurnover());
+                detailRow.getCell(3).setCellValue(businessData.getValidOrderCount());
+                detailRow.getCell(4).setCellValue(completionRate(businessData.getValidOrderCount(), businessData.getTotalOrderCount()));
+                detailRow.getCell(5).setCellValue(unitPrice(businessData.getTurnover(), businessData.getValidOrderCount()));
+                detailRow.getCell(6).setCellValue(businessData.getNewUsers());
             }
             //3. 通过输出流写入到客户端浏览器
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             ServletOutputStream out = response.getOutputStream();
             excel.write(out);
             //关闭资源
@@ -205,8 +247,19 @@ public class ReportServiceImpl implements ReportService {
             excel.close();
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            //删除流式写入产生的临时文件
+            if (excel != null) {
+                excel.dispose();
+            }
         }
+    }
 
+    private double completionRate(int validOrderCount, int totalOrderCount) {
+        return totalOrderCount == 0 ? 0.0 : (double) validOrderCount / totalOrderCount;
+    }
 
+    private double unitPrice(double turnover, int validOrderCount) {
+        return validOrderCount == 0 ? 0.0 : turnover / validOrderCount;
     }
 }
@@ -0,0 +1,78 @@
+package com.sky.service.impl;
+
+import com.sky.constant.StatusConstant;
+import com.sky.service.ShopStatusService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 店铺营业状态保存在redis中，每个节点在本地保留一份
+ * 修改状态时通过redis发布/订阅通知所有节点，另外定时重新读取一次，兜底消息丢失的情况
+ */
+@Service
+@Slf4j
+public class ShopStatusServiceImpl implements ShopStatusService, MessageListener {
+
+    public static final String KEY = "SHOP_STATUS";
+
+    public static final String CHANNEL = "shop_status";
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    //本地的营业状态，redis中没有设置过时为null
+    private volatile Integer status;
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @Override
+    public void setStatus(Integer status) {
+        redisTemplate.opsForValue().set(KEY, status);
+        this.status = status;
+        stringRedisTemplate.convertAndSend(CHANNEL, String.valueOf(status));
+    }
+
+    @Override
+    public Integer getStatus() {
+        return status;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return StatusConstant.ENABLE.equals(status);
+    }
+
+    /**
+     * 定时从redis重新读取营业状态
+     */
+    @Scheduled(fixedDelay = 30000)
+    public void refresh() {
+        try {
+            status = (Integer) redisTemplate.opsForValue().get(KEY);
+        } catch (Exception e) {
+            //redis暂时不可用时保留本地状态
+            log.error("读取店铺营业状态失败", e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        log.info("收到店铺营业状态变更消息:{}", body);
+        status = "null".equals(body) ? null : Integer.valueOf(body);
+    }
+}
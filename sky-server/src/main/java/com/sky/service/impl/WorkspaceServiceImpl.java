@@ -1,11 +1,13 @@
 package com.sky.service.impl;
 
-import com.sky.constant.StatusConstant;
+import com.sky.dto.DailyStatisticsDTO;
+import com.sky.dto.OrderStatusCountDTO;
 import com.sky.entity.Orders;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessSummaryService;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
@@ -17,6 +19,7 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -31,10 +34,22 @@ public class WorkspaceServiceImpl implements WorkspaceService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private BusinessSummaryService businessSummaryService;
 
 
     public BusinessDataVO getBusinessData(LocalDateTime begin, LocalDateTime end) {
 
+        //整天的时间段直接读取每日汇总数据
+        if (begin.toLocalTime().equals(LocalTime.MIN) && end.toLocalTime().equals(LocalTime.MAX)) {
+            List<DailyStatisticsDTO> dailyList = businessSummaryService.listDaily(begin.toLocalDate(), end.toLocalDate());
+            double turnover = dailyList.stream().mapToDouble(DailyStatisticsDTO::getTurnover).sum();
+            int validOrderCount = dailyList.stream().mapToInt(DailyStatisticsDTO::getValidOrderCount).sum();
+            int totalOrderCount = dailyList.stream().mapToInt(DailyStatisticsDTO::getTotalOrderCount).sum();
+            int newUsers = dailyList.stream().mapToInt(DailyStatisticsDTO::getNewUsers).sum();
+            return buildBusinessData(turnover, validOrderCount, totalOrderCount, newUsers);
+        }
+
         Map map = new HashMap();
         map.put("begin",begin);
         map.put("end",end);
@@ -50,6 +65,13 @@ public class WorkspaceServiceImpl implements WorkspaceService {
         //有效订单数
         Integer validOrderCount = orderMapper.countByMap(map);
 
+        //新增用户数
+        Integer newUsers = userMapper.countByMap(map);
+
+        return buildBusinessData(turnover, validOrderCount, totalOrderCount, newUsers);
+    }
+
+    private BusinessDataVO buildBusinessData(Double turnover, Integer validOrderCount, Integer totalOrderCount, Integer newUsers) {
         Double unitPrice = 0.0;
 
         Double orderCompletionRate = 0.0;
@@ -60,9 +82,6 @@ public class WorkspaceServiceImpl implements WorkspaceService {
             unitPrice = turnover / validOrderCount;
         }
 
-        //新增用户数
-        Integer newUsers = userMapper.countByMap(map);
-
         return BusinessDataVO.builder()
                 .turnover(turnover)
                 .validOrderCount(validOrderCount)
@@ -75,65 +94,25 @@ public class WorkspaceServiceImpl implements WorkspaceService {
 
 
     public OrderOverViewVO getOrderOverView() {
-        Map map = new HashMap();
-        map.put("begin", LocalDateTime.now().with(LocalTime.MIN));
-        map.put("status", Orders.TO_BE_CONFIRMED);
-
-        //待接单
-        Integer waitingOrders = orderMapper.countByMap(map);
-
-        //待派送
-        map.put("status", Orders.CONFIRMED);
-        Integer deliveredOrders = orderMapper.countByMap(map);
-
-        //已完成
-        map.put("status", Orders.COMPLETED);
-        Integer completedOrders = orderMapper.countByMap(map);
-
-        //已取消
-        map.put("status", Orders.CANCELLED);
-        Integer cancelledOrders = orderMapper.countByMap(map);
-
-        //全部订单
-        map.put("status", null);
-        Integer allOrders = orderMapper.countByMap(map);
+        //一次查询统计今天各个状态的订单数量
+        OrderStatusCountDTO count = orderMapper.countGroupByStatus(LocalDateTime.now().with(LocalTime.MIN));
 
         return OrderOverViewVO.builder()
-                .waitingOrders(waitingOrders)
-                .deliveredOrders(deliveredOrders)
-                .completedOrders(completedOrders)
-                .cancelledOrders(cancelledOrders)
-                .allOrders(allOrders)
+                .waitingOrders(count.getToBeConfirmed())
+                .deliveredOrders(count.getConfirmed())
+                .completedOrders(count.getCompleted())
+                .cancelledOrders(count.getCancelled())
+                .allOrders(count.getTotal())
                 .build();
     }
 
 
     public DishOverViewVO getDishOverView() {
-        Map map = new HashMap();
-        map.put("status", StatusConstant.ENABLE);
-        Integer sold = dishMapper.countByMap(map);
-
-        map.put("status", StatusConstant.DISABLE);
-        Integer discontinued = dishMapper.countByMap(map);
-
-        return DishOverViewVO.builder()
-                .sold(sold)
-                .discontinued(discontinued)
-                .build();
+        return dishMapper.countOverView();
     }
 
 
     public SetmealOverViewVO getSetmealOverView() {
-        Map map = new HashMap();
-        map.put("status", StatusConstant.ENABLE);
-        Integer sold = setmealMapper.countByMap(map);
-
-        map.put("status", StatusConstant.DISABLE);
-        Integer discontinued = setmealMapper.countByMap(map);
-
-        return SetmealOverViewVO.builder()
-                .sold(sold)
-                .discontinued(discontinued)
-                .build();
+        return setmealMapper.countOverView();
     }
 }
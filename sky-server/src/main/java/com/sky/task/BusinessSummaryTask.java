@@ -0,0 +1,58 @@
+package com.sky.task;
+
+import com.sky.mapper.DailyBusinessSummaryMapper;
+import com.sky.service.BusinessSummaryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 每日营业数据汇总对账
+ */
+@Component
+@Slf4j
+public class BusinessSummaryTask {
+
+    @Autowired
+    private BusinessSummaryService businessSummaryService;
+    @Autowired
+    private DailyBusinessSummaryMapper dailyBusinessSummaryMapper;
+    @Autowired
+    private JobLock jobLock;
+
+    /**
+     * 每晚2点(派送中订单自动完成之后)封存昨天及之前未封存的汇总数据
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void sealDailySummary() {
+        jobLock.runExclusively("sealDailySummary", Duration.ofMinutes(10), this::seal);
+    }
+
+    /**
+     * 每小时重新统计当天的汇总数据，修正增量更新可能产生的偏差
+     */
+    @Scheduled(cron = "0 0 * * * ?")
+    public void reconcileToday() {
+        jobLock.runExclusively("reconcileToday", Duration.ofMinutes(10), () -> {
+            log.info("对账当天营业数据:{}", LocalDate.now());
+            businessSummaryService.reconcile(LocalDate.now(), false);
+        });
+    }
+
+    private void seal() {
+        log.info("封存每日营业数据:{}", LocalDate.now());
+        LocalDate today = LocalDate.now();
+        List<LocalDate> dates = dailyBusinessSummaryMapper.getUnsealedDatesBefore(today);
+        if (!dates.contains(today.minusDays(1))) {
+            dates.add(today.minusDays(1));
+        }
+        for (LocalDate date : dates) {
+            businessSummaryService.reconcile(date, true);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.sky.task;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时任务的分布式锁，多个节点同时触发同一个定时任务时只有拿到锁的节点执行
+ * 锁有租约时间，执行期间定时续约，节点宕机时租约到期后其他节点可以继续执行
+ */
+@Component
+@Slf4j
+public class JobLock {
+
+    private static final String KEY_PREFIX = "job_lock:";
+
+    //租约时间，执行期间每1/3租约时间续约一次
+    private static final long LEASE_MILLIS = 30000;
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return 0",
+            Long.class);
+
+    //执行时间不足最短持有时间时保留锁到最短持有时间，避免其他节点时钟稍慢时重复执行同一次任务
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end " +
+                    "if tonumber(ARGV[2]) > 0 then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+                    "return redis.call('DEL', KEYS[1])",
+            Long.class);
+
+    //当前节点的标识
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    //续约线程
+    private ScheduledExecutorService renewExecutor;
+
+    @PostConstruct
+    public void init() {
+        renewExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "job-lock-renew");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        renewExecutor.shutdownNow();
+    }
+
+    /**
+     * 拿到锁时执行任务，没拿到锁说明其他节点正在执行或已经执行过，直接跳过
+     * @param name 任务名称
+     * @param lockAtLeast 最短持有时间，应小于任务的执行间隔
+     * @param task
+     * @return 是否执行了任务
+     */
+    public boolean runExclusively(String name, Duration lockAtLeast, Runnable task) {
+        String key = KEY_PREFIX + name;
+        String token = nodeId + ":" + Thread.currentThread().getId();
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(key, token, LEASE_MILLIS, TimeUnit.MILLISECONDS);
+        if (!Boolean.TRUE.equals(acquired)) {
+            log.debug("任务:{}由其他节点执行，跳过", name);
+            return false;
+        }
+
+        long start = System.currentTimeMillis();
+        ScheduledFuture<?> renewal = renewExecutor.scheduleAtFixedRate(() -> renew(key, token),
+                LEASE_MILLIS / 3, LEASE_MILLIS / 3, TimeUnit.MILLISECONDS);
+        try {
+            task.run();
+            return true;
+        } finally {
+            renewal.cancel(false);
+            long remaining = lockAtLeast.toMillis() - (System.currentTimeMillis() - start);
+            try {
+                stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(key), token, String.valueOf(Math.max(remaining, 0)));
+            } catch (Exception e) {
+                //释放失败时等租约到期
+                log.warn("释放任务锁失败:{}", name, e);
+            }
+        }
+    }
+
+    private void renew(String key, String token) {
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(key), token, String.valueOf(LEASE_MILLIS));
+            if (renewed == null || renewed == 0) {
+                log.warn("任务锁:{}续约失败，锁已过期或被其他节点持有", key);
+            }
+        } catch (Exception e) {
+            log.warn("任务锁:{}续约失败", key, e);
+        }
+    }
+}
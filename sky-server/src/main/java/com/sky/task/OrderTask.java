@@ -2,55 +2,111 @@ package com.sky.task;
 
 import com.sky.entity.Orders;
 import com.sky.mapper.OrderMapper;
+import com.sky.order.OrderStateMachine;
+import com.sky.order.OrderStatusCounter;
+import com.sky.service.BusinessSummaryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContextAware;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.scheduling.annotation.Schedules;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class OrderTask  {
 
+    //每批更新的订单数
+    private static final int BATCH_SIZE = 500;
+
     @Autowired
     private OrderMapper orderMapper;
-    @Scheduled(cron = "0 * * * * ?")
+    @Autowired
+    private BusinessSummaryService businessSummaryService;
+    @Autowired
+    private JobLock jobLock;
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+    @Autowired
+    private OrderStatusCounter orderStatusCounter;
+
+    /**
+     * 超时订单由OrderTimeoutQueue按到期时间取消，这里每10分钟兜底检查一次遗漏的订单
+     */
+    @Scheduled(cron = "0 0/10 * * * ?")
     public void processTimeoutOrder() {
+        //多个节点中只有一个执行
+        jobLock.runExclusively("processTimeoutOrder", Duration.ofMinutes(1), this::cancelTimeoutOrders);
+    }
+
+    @Scheduled(cron = "0 0 1 * * ?")
+    public void processDeliveryOrder() {
+        jobLock.runExclusively("processDeliveryOrder", Duration.ofMinutes(10), this::completeDeliveryOrders);
+    }
 
+    /**
+     * 每5分钟根据订单表重新统计各状态的订单数量
+     */
+    @Scheduled(cron = "0 0/5 * * * ?")
+    public void reconcileStatusCount() {
+        jobLock.runExclusively("reconcileStatusCount", Duration.ofMinutes(1), orderStatusCounter::reconcile);
+    }
+
+    private void cancelTimeoutOrders() {
         log.info("定时处理超时订单:{}", LocalDateTime.now());
-        LocalDateTime time= LocalDateTime.now().plusMinutes(-15);
-        //select * from orders where status=#{status} and order_time<#{ordertime}
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.PENDING_PAYMENT, time);
-
-        if (ordersList != null && ordersList.size() > 0) {
-            for (Orders orders : ordersList) {
-                orders.setStatus(Orders.CANCELLED);
-                orders.setCancelReason("订单超时，自动取消");
-                orders.setCancelTime(LocalDateTime.now());
-                orderMapper.update(orders);
-            }
-        }
+        LocalDateTime time= LocalDateTime.now().plusMinutes(-OrderTimeoutQueue.PAY_TIMEOUT_MINUTES);
+        //select id, order_time from orders where status=#{status} and order_time<#{ordertime}
+        List<Orders> ordersList = orderMapper.getIdAndOrderTimeByStatusAndOrderTimeLT(Orders.PENDING_PAYMENT, time);
+
+        Orders orders = Orders.builder()
+                .cancelReason("订单超时，自动取消")
+                .cancelTime(LocalDateTime.now())
+                .build();
+        int count = updateInBatches(ordersList, Orders.PENDING_PAYMENT, Orders.CANCELLED, orders);
+        log.info("超时订单:查询到{}个，取消{}个", ordersList.size(), count);
     }
 
 
-    @Scheduled(cron = "0 0 1 * * ?")
-    public void processDeliveryOrder() {
+    private void completeDeliveryOrders() {
         log.info("定时处理派送中订单:{}", LocalDateTime.now());
         LocalDateTime time = LocalDateTime.now().plusMinutes(-60);
 
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeLT(Orders.DELIVERY_IN_PROGRESS, time);
+        List<Orders> ordersList = orderMapper.getIdAndOrderTimeByStatusAndOrderTimeLT(Orders.DELIVERY_IN_PROGRESS, time);
+
+        int count = updateInBatches(ordersList, Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, null);
+        log.info("派送中订单:查询到{}个，完成{}个", ordersList.size(), count);
 
-        if (ordersList != null && ordersList.size() > 0) {
-            for (Orders orders : ordersList) {
-                orders.setStatus(Orders.COMPLETED);
-                orderMapper.update(orders);
+        if (count > 0) {
+            //部分订单可能已被手动完成，按涉及的日期重新统计营业数据，不按订单id累加
+            Set<LocalDate> dates = ordersList.stream()
+                    .map(o -> o.getOrderTime().toLocalDate())
+                    .collect(Collectors.toCollection(TreeSet::new));
+            for (LocalDate date : dates) {
+                businessSummaryService.reconcile(date, false);
             }
         }
+    }
 
+    /**
+     * 分批流转订单状态，只更新仍处于fromStatus状态的订单
+     * @param ordersList
+     * @param fromStatus
+     * @param toStatus
+     * @param orders 同时更新的其他字段
+     * @return 实际更新的订单数
+     */
+    private int updateInBatches(List<Orders> ordersList, Integer fromStatus, Integer toStatus, Orders orders) {
+        List<Long> ids = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+        int count = 0;
+        for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+            count += orderStateMachine.transition(ids.subList(i, Math.min(i + BATCH_SIZE, ids.size())), fromStatus, toStatus, orders);
+        }
+        return count;
     }
 }
@@ -0,0 +1,104 @@
+package com.sky.task;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.order.OrderStateMachine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 待支付订单超时队列，使用redis有序集合保存订单id，分数为超时时间
+ * 下单时放入队列，每秒取出已到期的订单批量取消，取消时只更新仍是待支付状态的订单
+ */
+@Component
+@Slf4j
+public class OrderTimeoutQueue {
+
+    public static final String KEY = "order_timeout_queue";
+
+    //下单后超过该时间未支付自动取消
+    public static final int PAY_TIMEOUT_MINUTES = 15;
+
+    //每次最多取出的订单数
+    private static final int BATCH_SIZE = 500;
+
+    //取出并删除已到期的订单，多个节点同时执行时每个订单只会被一个节点取到
+    private static final DefaultRedisScript<List> POLL_SCRIPT = new DefaultRedisScript<>(
+            "local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+                    "if #ids > 0 then redis.call('ZREM', KEYS[1], unpack(ids)) end " +
+                    "return ids", List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    /**
+     * 放入超时队列
+     * @param orderId
+     * @param orderTime 下单时间
+     */
+    public void schedule(Long orderId, LocalDateTime orderTime) {
+        stringRedisTemplate.opsForZSet().add(KEY, orderId.toString(), deadline(orderTime));
+    }
+
+    /**
+     * 启动时根据数据库中待支付的订单重建队列，兜底redis数据丢失的情况
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Orders> ordersList = orderMapper.getIdAndOrderTimeByStatus(Orders.PENDING_PAYMENT);
+        if (ordersList.isEmpty()) {
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        for (Orders orders : ordersList) {
+            tuples.add(ZSetOperations.TypedTuple.of(orders.getId().toString(), deadline(orders.getOrderTime())));
+        }
+        stringRedisTemplate.opsForZSet().add(KEY, tuples);
+        log.info("重建待支付订单超时队列:{}个订单", tuples.size());
+    }
+
+    /**
+     * 每秒取消已到期的订单
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void processExpired() {
+        List<String> ids;
+        do {
+            ids = stringRedisTemplate.execute(POLL_SCRIPT, Collections.singletonList(KEY),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(BATCH_SIZE));
+            if (ids == null || ids.isEmpty()) {
+                return;
+            }
+            Orders orders = Orders.builder()
+                    .cancelReason("订单超时，自动取消")
+                    .cancelTime(LocalDateTime.now())
+                    .build();
+            int count = orderStateMachine.transition(ids.stream().map(Long::valueOf).collect(Collectors.toList()),
+                    Orders.PENDING_PAYMENT, Orders.CANCELLED, orders);
+            log.info("取消超时订单:到期{}个，取消{}个", ids.size(), count);
+        } while (ids.size() == BATCH_SIZE);
+    }
+
+    private double deadline(LocalDateTime orderTime) {
+        return orderTime.plusMinutes(PAY_TIMEOUT_MINUTES).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
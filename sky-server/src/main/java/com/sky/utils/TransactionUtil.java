@@ -0,0 +1,32 @@
+package com.sky.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Slf4j
+public class TransactionUtil {
+
+    /**
+     * 当前事务提交后再执行，事务回滚时不执行；没有事务时立即执行
+     * 事务已经提交，执行失败只记录日志，不再抛给调用方
+     * 提交后当前连接仍绑定在线程上，需要写数据库时action内部要使用新的事务(REQUIRES_NEW)
+     * @param action
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    log.error("事务提交后执行失败", e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package com.sky.websocket;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.utils.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单消息推送，应用部署多个节点时每个节点都能推送给自己的WebSocket客户端
+ * 消息先追加到redis stream中得到消息id，再通过redis发布/订阅通知所有节点，每个节点推送给本地的客户端
+ * 客户端断线重连时带上最后收到的消息id(/ws/{sid}?lastId=xxx)，可以补发断线期间的消息
+ */
+@Component
+@Slf4j
+public class OrderNotifier implements MessageListener {
+
+    public static final String STREAM_KEY = "order_notify_stream";
+
+    public static final String CHANNEL = "order_notify";
+
+    private static final String MESSAGE_FIELD = "message";
+
+    private static final String MSG_ID = "msgId";
+
+    //stream中大约保留的消息数
+    private static final long STREAM_MAX_LENGTH = 1000;
+
+    //重连时最多补发的消息数
+    private static final long RESUME_LIMIT = 100;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private WebSocketServer webSocketServer;
+
+    @PostConstruct
+    public void init() {
+        webSocketServer.setMessageHistory(this::getMessagesAfter);
+    }
+
+    /**
+     * 向所有节点的客户端推送消息
+     * 在当前事务提交后推送，推送失败只记录日志，不影响已经完成的业务操作
+     * @param message
+     */
+    public void publish(Map<String, Object> message) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                doPublish(message);
+            } catch (Exception e) {
+                log.error("推送订单消息失败:{}", message, e);
+            }
+        });
+    }
+
+    private void doPublish(Map<String, Object> message) {
+        String json = JSON.toJSONString(message);
+        //追加消息时同时按近似长度裁剪stream，只需要一次XADD
+        RecordId recordId = stringRedisTemplate.execute((RedisCallback<RecordId>) connection -> connection.streamCommands().xAdd(
+                StreamRecords.rawBytes(Collections.singletonMap(bytes(MESSAGE_FIELD), bytes(json))).withStreamKey(bytes(STREAM_KEY)),
+                RedisStreamCommands.XAddOptions.maxlen(STREAM_MAX_LENGTH).approximateTrimming(true)));
+
+        Map<String, Object> withId = new HashMap<>(message);
+        withId.put(MSG_ID, recordId.getValue());
+        stringRedisTemplate.convertAndSend(CHANNEL, JSON.toJSONString(withId));
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 查询某个消息id之后的消息
+     * @param lastId
+     * @return
+     */
+    public List<String> getMessagesAfter(String lastId) {
+        List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream()
+                .range(STREAM_KEY, Range.leftOpen(lastId, "+"), Limit.limit().count((int) RESUME_LIMIT));
+        List<String> messages = new ArrayList<>();
+        if (records == null) {
+            return messages;
+        }
+        for (MapRecord<String, Object, Object> record : records) {
+            JSONObject message = JSON.parseObject((String) record.getValue().get(MESSAGE_FIELD));
+            message.put(MSG_ID, record.getId().getValue());
+            messages.add(message.toJSONString());
+        }
+        return messages;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        webSocketServer.sendToAllClient(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
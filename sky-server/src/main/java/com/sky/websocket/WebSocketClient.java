@@ -0,0 +1,131 @@
+package com.sky.websocket;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个WebSocket客户端连接，待发送的消息先放入有界队列，再由发送线程依次异步发出
+ * 同一个连接同时只有一条消息在发送，上一条发送完成后才发送下一条，慢客户端只会积压自己的队列
+ */
+@Slf4j
+class WebSocketClient {
+
+    static final String DROP_OLDEST = "drop-oldest";
+
+    private final String sid;
+    private final Session session;
+    private final int capacity;
+    private final boolean closeOnOverflow;
+
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    //该连接是否有消息正在发送或已安排发送
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    WebSocketClient(String sid, Session session, int capacity, String overflowPolicy) {
+        this.sid = sid;
+        this.session = session;
+        this.capacity = capacity;
+        this.closeOnOverflow = !DROP_OLDEST.equals(overflowPolicy);
+    }
+
+    Session getSession() {
+        return session;
+    }
+
+    /**
+     * 放入待发送队列并安排发送，不会阻塞调用线程
+     * @param message
+     * @param executor
+     */
+    void offer(String message, Executor executor) {
+        if (!session.isOpen()) {
+            return;
+        }
+        if (size.incrementAndGet() > capacity) {
+            if (closeOnOverflow) {
+                size.decrementAndGet();
+                log.warn("客户端:{}待发送消息超过{}条，关闭连接", sid, capacity);
+                close(CloseReason.CloseCodes.TRY_AGAIN_LATER, "消息积压");
+                return;
+            }
+            //丢弃最早的一条消息
+            if (queue.poll() != null) {
+                size.decrementAndGet();
+                log.warn("客户端:{}待发送消息超过{}条，丢弃最早的消息", sid, capacity);
+            }
+        }
+        queue.offer(message);
+        if (sending.compareAndSet(false, true)) {
+            schedule(executor);
+        }
+    }
+
+    /**
+     * 异步发送队列中的下一条消息，发送完成后再安排下一条
+     * 同一个连接同时只有一条消息在发送，发送线程不等待客户端，慢客户端不会占住发送线程
+     * @param executor
+     */
+    private void sendNext(Executor executor) {
+        String message = queue.poll();
+        if (message == null) {
+            sending.set(false);
+            //释放标记期间又有新消息放入时重新安排发送
+            if (!queue.isEmpty() && sending.compareAndSet(false, true)) {
+                schedule(executor);
+            }
+            return;
+        }
+        size.decrementAndGet();
+        if (!session.isOpen()) {
+            queue.clear();
+            size.set(0);
+            sending.set(false);
+            return;
+        }
+        try {
+            //发送超时时间由异步发送的sendTimeout控制，超时后回调结果为失败
+            session.getAsyncRemote().sendText(message, result -> {
+                if (result.isOK()) {
+                    schedule(executor);
+                    return;
+                }
+                log.warn("向客户端:{}发送消息失败，关闭连接", sid, result.getException());
+                close(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "发送失败");
+                sending.set(false);
+            });
+        } catch (Exception e) {
+            log.warn("向客户端:{}发送消息失败，关闭连接", sid, e);
+            close(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "发送失败");
+            sending.set(false);
+        }
+    }
+
+    private void schedule(Executor executor) {
+        try {
+            executor.execute(() -> sendNext(executor));
+        } catch (RejectedExecutionException e) {
+            //应用关闭中
+            sending.set(false);
+        }
+    }
+
+    void close(CloseReason.CloseCode code, String reason) {
+        queue.clear();
+        size.set(0);
+        try {
+            session.close(new CloseReason(code, reason));
+        } catch (IOException e) {
+            log.warn("关闭客户端:{}连接失败", sid, e);
+        }
+    }
+}
@@ -1,34 +1,103 @@
 package com.sky.websocket;
 
+import com.sky.properties.WebSocketProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.websocket.CloseReason;
 import jakarta.websocket.OnClose;
 import jakarta.websocket.OnMessage;
 import jakarta.websocket.OnOpen;
 import jakarta.websocket.Session;
 import jakarta.websocket.server.PathParam;
 import jakarta.websocket.server.ServerEndpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * WebSocket服务
+ * 群发时只把消息放入每个客户端的待发送队列，由后台线程发送，调用方不会被慢客户端阻塞
  */
 @Component
 @ServerEndpoint("/ws/{sid}")
+@Slf4j
 public class WebSocketServer {
 
-    //存放会话对象
-    private static Map<String, Session> sessionMap = new HashMap();
+    //存放客户端连接，端点对象由容器为每个连接单独创建，因此是静态的
+    private static final Map<String, WebSocketClient> clientMap = new ConcurrentHashMap<>();
+
+    //端点对象不是spring创建的，配置和线程池在spring bean初始化时保存下来
+    private static volatile WebSocketProperties properties = new WebSocketProperties();
+    //按顺序把消息分发到各个客户端队列的线程，保证消息顺序
+    private static volatile ExecutorService broadcastExecutor;
+    //发起异步发送的线程，不等待发送完成
+    private static volatile ExecutorService sendExecutor;
+    //根据最后收到的消息id查询之后的消息，用于断线重连后补发
+    private static volatile Function<String, List<String>> messageHistory;
+
+    @Autowired
+    private WebSocketProperties webSocketProperties;
+
+    @PostConstruct
+    public void init() {
+        properties = webSocketProperties;
+        broadcastExecutor = Executors.newSingleThreadExecutor(daemonThreadFactory("ws-broadcast"));
+        sendExecutor = Executors.newFixedThreadPool(webSocketProperties.getSendThreads(), daemonThreadFactory("ws-send"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        broadcastExecutor.shutdownNow();
+        sendExecutor.shutdownNow();
+    }
+
+    /**
+     * 设置查询历史消息的方法
+     * @param history
+     */
+    public void setMessageHistory(Function<String, List<String>> history) {
+        messageHistory = history;
+    }
 
     /**
      * 连接建立成功调用的方法
      */
     @OnOpen
     public void onOpen(Session session, @PathParam("sid") String sid) {
-        System.out.println("客户端：" + sid + "建立连接");
-        sessionMap.put(sid, session);
+        log.info("客户端：{}建立连接", sid);
+        WebSocketProperties props = properties;
+        session.getAsyncRemote().setSendTimeout(props.getSendTimeout());
+        WebSocketClient client = new WebSocketClient(sid, session, props.getQueueCapacity(), props.getOverflowPolicy());
+        WebSocketClient old = clientMap.put(sid, client);
+        if (old != null && old.getSession() != session) {
+            //同一个sid重复连接时关闭旧连接
+            old.close(CloseReason.CloseCodes.NORMAL_CLOSURE, "重复连接");
+        }
+
+        //断线重连时补发之后的消息，先注册连接再补发，消息可能重复但不会遗漏，客户端按msgId去重
+        List<String> lastIds = session.getRequestParameterMap().get("lastId");
+        if (lastIds != null && !lastIds.isEmpty() && messageHistory != null) {
+            String lastId = lastIds.get(0);
+            execute(() -> {
+                try {
+                    for (String message : messageHistory.apply(lastId)) {
+                        client.offer(message, sendExecutor);
+                    }
+                } catch (Exception e) {
+                    log.warn("客户端:{}补发消息失败，lastId:{}", sid, lastId, e);
+                }
+            });
+        }
     }
 
     /**
@@ -38,7 +107,7 @@ public class WebSocketServer {
      */
     @OnMessage
     public void onMessage(String message, @PathParam("sid") String sid) {
-        System.out.println("收到来自客户端：" + sid + "的信息:" + message);
+        log.info("收到来自客户端：{}的信息:{}", sid, message);
     }
 
     /**
@@ -47,26 +116,40 @@ public class WebSocketServer {
      * @param sid
      */
     @OnClose
-    public void onClose(@PathParam("sid") String sid) {
-        System.out.println("连接断开:" + sid);
-        sessionMap.remove(sid);
+    public void onClose(Session session, @PathParam("sid") String sid) {
+        log.info("连接断开:{}", sid);
+        //只移除当前会话，避免误删同一个sid的新连接
+        clientMap.computeIfPresent(sid, (key, client) -> client.getSession() == session ? null : client);
     }
 
     /**
-     * 群发
+     * 群发，立即返回，消息由后台线程发送
      *
      * @param message
      */
     public void sendToAllClient(String message) {
-        Collection<Session> sessions = sessionMap.values();
-        for (Session session : sessions) {
-            try {
-                //服务器向客户端发送消息
-                session.getBasicRemote().sendText(message);
-            } catch (Exception e) {
-                e.printStackTrace();
+        execute(() -> {
+            for (WebSocketClient client : clientMap.values()) {
+                client.offer(message, sendExecutor);
             }
+        });
+    }
+
+    private static void execute(Runnable task) {
+        try {
+            broadcastExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("应用关闭中，丢弃消息");
         }
     }
 
+    private static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
 }
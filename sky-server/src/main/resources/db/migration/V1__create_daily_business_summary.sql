@@ -0,0 +1,11 @@
+-- 每日营业数据汇总表：下单/完成/取消/新用户注册时增量更新，每晚根据订单表对账并封存
+create table if not exists daily_business_summary
+(
+    date              date                     not null comment '营业日期' primary key,
+    turnover          decimal(12, 2) default 0 not null comment '营业额',
+    valid_order_count int            default 0 not null comment '有效订单数',
+    total_order_count int            default 0 not null comment '订单总数',
+    new_users         int            default 0 not null comment '新增用户数',
+    sealed            tinyint        default 0 not null comment '是否已封存 0否 1是，封存后不再修改',
+    update_time       datetime                 null comment '更新时间'
+) comment '每日营业数据汇总';
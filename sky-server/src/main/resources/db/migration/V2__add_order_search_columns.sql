@@ -0,0 +1,10 @@
+-- 订单号、手机号的反转列：由数据库在插入和更新时自动维护，用于按尾号检索
+-- number like 'xxx%' 走订单号索引，number_reversed like reverse('xxx') + '%' 走反转列索引，两者都不需要扫描全表
+alter table orders
+    add column number_reversed varchar(50) as (reverse(number)) stored comment '反转的订单号，用于按尾号检索',
+    add column phone_reversed  varchar(11) as (reverse(phone)) stored comment '反转的手机号，用于按尾号检索';
+
+create index idx_orders_number on orders (number);
+create index idx_orders_number_reversed on orders (number_reversed);
+create index idx_orders_phone on orders (phone);
+create index idx_orders_phone_reversed on orders (phone_reversed);
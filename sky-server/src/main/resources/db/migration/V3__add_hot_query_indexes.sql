@@ -0,0 +1,28 @@
+-- 热点查询需要的索引，对应mapper中的查询条件
+
+-- 超时/派送中订单扫描、按状态统计：where status = ? and order_time < ?
+create index idx_orders_status_order_time on orders (status, order_time);
+-- 报表和工作台按下单时间统计：where order_time between ? and ?
+create index idx_orders_order_time on orders (order_time);
+-- 用户历史订单(含游标分页)：where user_id = ? order by order_time desc, id desc
+create index idx_orders_user_order_time on orders (user_id, order_time, id);
+
+-- 订单明细：where order_id = ? / order_id in (...)
+create index idx_order_detail_order_id on order_detail (order_id);
+
+-- 菜品口味：where dish_id = ? / dish_id in (...)
+create index idx_dish_flavor_dish_id on dish_flavor (dish_id);
+
+-- 购物车：where user_id = ? and dish_id = ? and setmeal_id = ? and dish_flavor = ?
+create index idx_shopping_cart_user_dish_setmeal on shopping_cart (user_id, dish_id, setmeal_id);
+
+-- 新增用户统计：where create_time between ? and ?
+create index idx_user_create_time on user (create_time);
+
+-- C端菜品、套餐列表：where category_id = ? and status = ?
+create index idx_dish_category_status on dish (category_id, status);
+create index idx_setmeal_category_status on setmeal (category_id, status);
+
+-- 套餐菜品关系：where setmeal_id = ? / where dish_id in (...)
+create index idx_setmeal_dish_setmeal_id on setmeal_dish (setmeal_id);
+create index idx_setmeal_dish_dish_id on setmeal_dish (dish_id);
@@ -0,0 +1,2 @@
+-- 微信登录按openid查询用户：where openid = ?
+create index idx_user_openid on user (openid);
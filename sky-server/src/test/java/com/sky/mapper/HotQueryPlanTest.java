@@ -0,0 +1,207 @@
+package com.sky.mapper;
+
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.entity.ShoppingCart;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 热点查询的执行计划回归测试
+ * 在mysql容器中建表、执行 db/migration 下的迁移脚本并写入测试数据，
+ * 再对mapper中实际的sql执行EXPLAIN，断言没有全表扫描(type = ALL)并且使用了预期的索引
+ * 没有docker时跳过
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class HotQueryPlanTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0.36").withDatabaseName("sky_take_out");
+
+    private static DataSource dataSource;
+    private static Configuration configuration;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        dataSource = new DriverManagerDataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+
+        //与已有的数据库一样，先有原来的表，再从版本0开始执行迁移，配置与application.yml一致
+        runScript("db/schema/sky_take_out.sql");
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+        runScript("db/explain/seed.sql");
+
+        //加载mapper，与application.yml中的mybatis配置一致
+        configuration = new Configuration(new Environment("explain", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.getTypeAliasRegistry().registerAliases("com.sky.entity");
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath*:mapper/*.xml")) {
+            try (InputStream inputStream = resource.getInputStream()) {
+                new XMLMapperBuilder(inputStream, configuration, resource.toString(), configuration.getSqlFragments()).parse();
+            }
+        }
+    }
+
+    private static void runScript(String path) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource(path));
+        populator.setSqlScriptEncoding(StandardCharsets.UTF_8.name());
+        populator.execute(dataSource);
+    }
+
+    static Stream<HotQuery> hotQueries() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime todayBegin = LocalDateTime.of(LocalDate.now(), LocalTime.MIN);
+
+        OrdersPageQueryDTO history = new OrdersPageQueryDTO();
+        history.setUserId(1L);
+        history.setPageSize(10);
+        history.setCursorOrderTime(now);
+        history.setCursorId(Long.MAX_VALUE);
+
+        OrdersPageQueryDTO numberSuffix = new OrdersPageQueryDTO();
+        numberSuffix.setNumber("7919");
+
+        OrdersPageQueryDTO phoneSuffix = new OrdersPageQueryDTO();
+        phoneSuffix.setPhone("4729");
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.setUserId(1L);
+
+        Dish dish = new Dish();
+        dish.setCategoryId(1L);
+        dish.setStatus(1);
+
+        Setmeal setmeal = new Setmeal();
+        setmeal.setCategoryId(1L);
+        setmeal.setStatus(1);
+
+        return Stream.of(
+                //超时订单、派送中订单扫描
+                new HotQuery(OrderMapper.class, "getIdAndOrderTimeByStatusAndOrderTimeLT", List.of("idx_orders_status_order_time"), 1, now.minusMinutes(15)),
+                new HotQuery(OrderMapper.class, "getIdAndOrderTimeByStatus", List.of("idx_orders_status_order_time"), 1),
+                //工作台、报表按下单时间统计
+                new HotQuery(OrderMapper.class, "countGroupByStatus", List.of("idx_orders_order_time"), todayBegin),
+                new HotQuery(OrderMapper.class, "getDailyStatistics", List.of("idx_orders_order_time"), now.minusDays(7), now, 5),
+                //用户历史订单
+                new HotQuery(OrderMapper.class, "cursorQuery", List.of("idx_orders_user_order_time"), history),
+                //按订单号、手机号尾号检索
+                new HotQuery(OrderMapper.class, "pageQuery", List.of("idx_orders_number", "idx_orders_number_reversed"), numberSuffix),
+                new HotQuery(OrderMapper.class, "pageQuery", List.of("idx_orders_phone", "idx_orders_phone_reversed"), phoneSuffix),
+                //支付回调
+                new HotQuery(OrderMapper.class, "getByNumber", List.of("idx_orders_number"), "7000000000000007919"),
+                //订单明细
+                new HotQuery(OrderDetailMapper.class, "getByOrderId", List.of("idx_order_detail_order_id"), 1L),
+                new HotQuery(OrderDetailMapper.class, "getByOrderIds", List.of("idx_order_detail_order_id"), List.of(1L, 2L, 3L)),
+                //菜品口味
+                new HotQuery(DishFlavorMapper.class, "getByDishId", List.of("idx_dish_flavor_dish_id"), 1L),
+                new HotQuery(DishFlavorMapper.class, "getByDishIds", List.of("idx_dish_flavor_dish_id"), List.of(1L, 2L, 3L)),
+                //购物车
+                new HotQuery(ShoppingCartMapper.class, "list", List.of("idx_shopping_cart_user_dish_setmeal"), shoppingCart),
+                //微信登录、新增用户统计
+                new HotQuery(UserMapper.class, "getByOpenid", List.of("idx_user_openid"), "openid1"),
+                new HotQuery(UserMapper.class, "countNewUsersByDate", List.of("idx_user_create_time"), now.minusDays(7), now),
+                //C端菜品、套餐列表
+                new HotQuery(DishMapper.class, "list", List.of("idx_dish_category_status"), dish),
+                new HotQuery(SetmealMapper.class, "list", List.of("idx_setmeal_category_status"), setmeal),
+                //套餐菜品
+                new HotQuery(SetmealMapper.class, "getDishItemBySetmealId", List.of("idx_setmeal_dish_setmeal_id"), 1L),
+                new HotQuery(DishMapper.class, "getBySetmealId", List.of("idx_setmeal_dish_setmeal_id"), 1L),
+                new HotQuery(SetmealDishMapper.class, "getSetmealIdsByDishIds", List.of("idx_setmeal_dish_dish_id"), List.of(1L, 2L, 3L))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void shouldUseIndex(HotQuery query) throws Exception {
+        List<ExplainRow> plan = explain(query);
+        for (ExplainRow row : plan) {
+            assertFalse("ALL".equals(row.type()), () -> query + " 全表扫描了 " + row.table() + ": " + plan);
+        }
+        Set<String> keys = new HashSet<>();
+        plan.forEach(row -> keys.addAll(row.keys()));
+        assertTrue(keys.containsAll(query.expectedKeys()), () -> query + " 没有使用索引 " + query.expectedKeys() + ": " + plan);
+    }
+
+    /**
+     * 用mybatis生成mapper方法实际执行的sql和参数，执行EXPLAIN
+     * @param query
+     * @return
+     */
+    private List<ExplainRow> explain(HotQuery query) throws Exception {
+        Method method = Arrays.stream(query.mapper().getMethods())
+                .filter(m -> m.getName().equals(query.method()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("没有找到mapper方法:" + query));
+        Object parameter = new ParamNameResolver(configuration, method).getNamedParams(query.args());
+        MappedStatement mappedStatement = configuration.getMappedStatement(query.mapper().getName() + "." + query.method());
+        BoundSql boundSql = mappedStatement.getBoundSql(parameter);
+
+        List<ExplainRow> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + boundSql.getSql())) {
+            new DefaultParameterHandler(mappedStatement, parameter, boundSql).setParameters(statement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String key = resultSet.getString("key");
+                    rows.add(new ExplainRow(resultSet.getString("table"), resultSet.getString("type"),
+                            key == null ? List.of() : Arrays.asList(key.split(","))));
+                }
+            }
+        }
+        return rows;
+    }
+
+    record HotQuery(Class<?> mapper, String method, List<String> expectedKeys, Object... args) {
+        @Override
+        public String toString() {
+            return mapper.getSimpleName() + "." + method;
+        }
+    }
+
+    record ExplainRow(String table, String type, List<String> keys) {
+    }
+}
@@ -0,0 +1,55 @@
+-- 执行计划测试数据：数据量和分布接近线上，让优化器按索引的选择性选择执行计划
+
+create table explain_digit (n int primary key);
+insert into explain_digit (n) values (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+
+-- 1 ~ 100000
+create table explain_seq (n int primary key);
+insert into explain_seq (n)
+select a.n + b.n * 10 + c.n * 100 + d.n * 1000 + e.n * 10000 + 1
+from explain_digit a, explain_digit b, explain_digit c, explain_digit d, explain_digit e;
+
+-- 20个分类
+insert into category (type, name, sort, status, create_time, update_time)
+select n % 2 + 1, concat('分类', n), n, 1, now(), now() from explain_seq where n <= 20;
+
+-- 2000个菜品，每个分类100个，起售和停售各一半
+insert into dish (name, category_id, price, image, description, status, create_time, update_time)
+select concat('菜品', n), n % 20 + 1, 10 + n % 90, '', '', (n div 20) % 2, now() - interval n minute, now()
+from explain_seq where n <= 2000;
+
+-- 每个菜品3个口味
+insert into dish_flavor (dish_id, name, value)
+select (n - 1) div 3 + 1, concat('口味', n % 3), '["不辣","微辣","中辣"]' from explain_seq where n <= 6000;
+
+-- 400个套餐，每个套餐5个菜品
+insert into setmeal (category_id, name, price, status, description, image, create_time, update_time)
+select n % 20 + 1, concat('套餐', n), 50 + n % 50, (n div 20) % 2, '', '', now() - interval n minute, now()
+from explain_seq where n <= 400;
+
+insert into setmeal_dish (setmeal_id, dish_id, name, price, copies)
+select (n - 1) div 5 + 1, n * 37 % 2000 + 1, concat('菜品', n * 37 % 2000 + 1), 10, 1 from explain_seq where n <= 2000;
+
+-- 20000个用户，注册时间分布在400天内
+insert into user (openid, name, create_time)
+select concat('openid', n), concat('用户', n), now() - interval n % 400 day - interval n % 1440 minute
+from explain_seq where n <= 20000;
+
+-- 50000个订单，下单时间分布在一年内，状态均匀分布
+insert into orders (number, status, user_id, address_book_id, order_time, pay_method, pay_status, amount, phone, address, consignee)
+select concat('7', lpad(n * 7919, 18, '0')), n % 6 + 1, n % 20000 + 1, 1, now() - interval n * 7 % 525600 minute,
+       1, n % 2, 10 + n % 200, concat('138', lpad(n * 104729 % 100000000, 8, '0')), '测试地址', '测试用户'
+from explain_seq where n <= 50000;
+
+-- 每个订单2条明细
+insert into order_detail (name, image, order_id, dish_id, number, amount)
+select concat('菜品', n % 2000 + 1), '', (n - 1) div 2 + 1, n % 2000 + 1, 1, 10 from explain_seq where n <= 100000;
+
+-- 5000个用户的购物车，每人4件商品
+insert into shopping_cart (name, image, user_id, dish_id, number, amount, create_time)
+select concat('菜品', n % 2000 + 1), '', n % 5000 + 1, n % 2000 + 1, 1, 10, now() from explain_seq where n <= 20000;
+
+drop table explain_seq;
+drop table explain_digit;
+
+analyze table category, dish, dish_flavor, setmeal, setmeal_dish, user, orders, order_detail, shopping_cart;